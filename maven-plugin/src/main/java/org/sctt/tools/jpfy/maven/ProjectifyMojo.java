@@ -0,0 +1,193 @@
+package org.sctt.tools.jpfy.maven;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.sctt.tools.jpfy.Batch;
+import org.sctt.tools.jpfy.CopyTransfer;
+import org.sctt.tools.jpfy.Plan;
+import org.sctt.tools.jpfy.Projectify;
+
+/**
+ * Copies sources organized by package into a generated source root, in
+ * the build process, and adds it to the compile source roots.
+ *
+ * <p>The output directory belongs to the plugin: it is emptied before
+ * every run, so files removed from the sources do not linger. To keep
+ * that from deleting anything else, it has to be inside the build
+ * directory and apart from the source directory.
+ */
+@Mojo(
+    name = "projectify",
+    defaultPhase = LifecyclePhase.GENERATE_SOURCES,
+    threadSafe = true
+)
+public final class ProjectifyMojo extends AbstractMojo {
+
+    /**
+     * Folder with unorganized sources.
+     */
+    @Parameter(
+        property = "jpfy.sourceDirectory",
+        defaultValue = "${project.basedir}/src/main/jpfy",
+        required = true
+    )
+    private File sourceDirectory;
+
+    /**
+     * Generated source root to copy organized sources into.
+     */
+    @Parameter(
+        property = "jpfy.outputDirectory",
+        defaultValue = "${project.build.directory}/generated-sources/jpfy",
+        required = true
+    )
+    private File outputDirectory;
+
+    /**
+     * Build directory of the project, the only place output may go.
+     */
+    @Parameter(
+        defaultValue = "${project.build.directory}",
+        readonly = true,
+        required = true
+    )
+    private File buildDirectory;
+
+    /**
+     * Number of threads: 1 is serial, 0 starts a virtual thread per file.
+     */
+    @Parameter(property = "jpfy.threads", defaultValue = "0")
+    private int threads;
+
+    /**
+     * Maximum number of files read at once.
+     */
+    @Parameter(property = "jpfy.maxOpenFiles", defaultValue = "256")
+    private int maxOpenFiles;
+
+    /**
+     * Whether to copy non-Java files too.
+     */
+    @Parameter(property = "jpfy.copyResources", defaultValue = "false")
+    private boolean copyResources;
+
+    /**
+     * Whether to skip the execution.
+     */
+    @Parameter(property = "jpfy.skip", defaultValue = "false")
+    private boolean skip;
+
+    /**
+     * Project being built.
+     */
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (this.skip) {
+            this.getLog().info("Skipping projectify");
+            return;
+        }
+        final Path src = this.sourceDirectory.toPath();
+        if (!Files.isDirectory(src)) {
+            this.getLog().info("No sources to organize in " + src);
+            return;
+        }
+        final Path out = this.outputDirectory.toPath();
+        ProjectifyMojo.check(
+            src.toAbsolutePath().normalize(),
+            out.toAbsolutePath().normalize(),
+            this.buildDirectory.toPath().toAbsolutePath().normalize()
+        );
+        final Plan plan = new Plan();
+        try {
+            ProjectifyMojo.clear(out);
+            new Projectify(List.of(src))
+                .threads(this.threads)
+                .limit(this.maxOpenFiles)
+                .resources(this.copyResources)
+                .plan(
+                    (from, to) -> plan.put(
+                        from, out.resolve(src.relativize(to).toString())
+                    )
+                );
+        } catch (final IOException e) {
+            throw new MojoExecutionException(
+                "Unable to organize sources in " + src, e
+            );
+        }
+        final Map<Path, IOException> failures = new Batch(
+            new CopyTransfer(), this.threads, this.maxOpenFiles
+        ).apply(plan);
+        if (!failures.isEmpty()) {
+            failures.forEach(
+                (file, ex) -> this.getLog().error(
+                    "Failed to copy " + file + ": " + ex.getMessage()
+                )
+            );
+            throw new MojoExecutionException(
+                "Failed to copy " + failures.size() + " of " + plan.size()
+                    + " files into " + out
+            );
+        }
+        this.project.addCompileSourceRoot(out.toString());
+        this.getLog().info(
+            "Organized " + plan.size() + " files into " + out
+        );
+    }
+
+    /**
+     * Make sure emptying the output directory destroys nothing but output.
+     *
+     * @param src Source directory.
+     * @param out Output directory.
+     * @param build Build directory.
+     * @throws MojoExecutionException If the output directory is unsafe.
+     */
+    private static void check(final Path src, final Path out,
+        final Path build) throws MojoExecutionException {
+        if (out.startsWith(src) || src.startsWith(out)) {
+            throw new MojoExecutionException(
+                "Output directory " + out + " overlaps source directory "
+                    + src + "; it is emptied on every run"
+            );
+        }
+        if (!out.startsWith(build) || out.equals(build)) {
+            throw new MojoExecutionException(
+                "Output directory " + out + " is not inside build directory "
+                    + build + "; it is emptied on every run"
+            );
+        }
+    }
+
+    /**
+     * Delete everything in a directory left by a previous run.
+     *
+     * @param dir Directory, which may not exist.
+     * @throws IOException If deleting fails.
+     */
+    private static void clear(final Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            for (final Path path : paths.sorted(Comparator.reverseOrder())
+                .filter(found -> !found.equals(dir)).toList()) {
+                Files.delete(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+/**
+ * Maven plugin running projectify in the build.
+ */
+package org.sctt.tools.jpfy.maven;
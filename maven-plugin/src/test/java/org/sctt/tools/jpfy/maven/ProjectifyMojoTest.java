@@ -0,0 +1,99 @@
+package org.sctt.tools.jpfy.maven;
+
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.project.MavenProject;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link ProjectifyMojo}.
+ */
+@DisplayName("Projectify mojo tests")
+class ProjectifyMojoTest {
+
+    @TempDir
+    Path base;
+
+    private Path src;
+
+    private Path build;
+
+    private MavenProject project;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        src = Files.createDirectories(base.resolve("src/main/jpfy"));
+        build = base.resolve("target");
+        project = new MavenProject();
+        Files.writeString(src.resolve("A.java"), "package org.a;");
+    }
+
+    @Test
+    @DisplayName("Should replace stale output with sources organized by package")
+    void shouldCopySourcesIntoPackages() throws Exception {
+        // given
+        Path out = Files.createDirectories(build.resolve("generated-sources/jpfy"));
+        Path stale = Files.createDirectories(out.resolve("org/old")).resolve("Old.java");
+        Files.writeString(stale, "package org.old;");
+
+        // when
+        mojo(out).execute();
+
+        // then
+        assertFalse(Files.exists(stale));
+        assertEquals("package org.a;", Files.readString(out.resolve("org/a/A.java")));
+        assertTrue(Files.exists(src.resolve("A.java")));
+        assertEquals(List.of(out.toString()), project.getCompileSourceRoots());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"src/main/jpfy", "src/main/jpfy/gen", "src", "target", "generated"})
+    @DisplayName("Should refuse output directories it is not safe to empty")
+    void shouldRefuseUnsafeOutput(String dir) throws Exception {
+        // given
+        Path out = Files.createDirectories(base.resolve(dir));
+        Path kept = out.resolve("Kept.java");
+        Files.writeString(kept, "package kept;");
+
+        // when
+        MojoExecutionException ex = assertThrows(MojoExecutionException.class, () -> mojo(out).execute());
+
+        // then
+        assertTrue(ex.getMessage().contains("emptied on every run"));
+        assertTrue(Files.exists(kept));
+        assertTrue(Files.exists(src.resolve("A.java")));
+        assertTrue(project.getCompileSourceRoots().isEmpty());
+    }
+
+    private ProjectifyMojo mojo(Path out) throws ReflectiveOperationException {
+        ProjectifyMojo mojo = new ProjectifyMojo();
+        set(mojo, "sourceDirectory", src.toFile());
+        set(mojo, "outputDirectory", out.toFile());
+        set(mojo, "buildDirectory", build.toFile());
+        set(mojo, "threads", 1);
+        set(mojo, "maxOpenFiles", 16);
+        set(mojo, "project", project);
+        return mojo;
+    }
+
+    private static void set(ProjectifyMojo mojo, String name, Object value) throws ReflectiveOperationException {
+        Field field = ProjectifyMojo.class.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(mojo, value);
+    }
+}
@@ -0,0 +1,76 @@
+package org.sctt.tools.jpfy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import picocli.CommandLine;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Full planning run over a generated tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(1)
+public class AppBench {
+
+    /**
+     * Number of Java files in the tree.
+     */
+    @Param({"10000", "100000", "1000000"})
+    public int files;
+
+    /**
+     * Value of --threads.
+     */
+    @Param({"1", "0"})
+    public String threads;
+
+    private Path tree;
+
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.tree = Files.createTempDirectory("jpfy-bench");
+        new Corpus().files(this.files).nested(2, 100).packages(1000, 10)
+            .noise(0.3, 0.05, 0.1).resources(0.1).malformed(0.01)
+            .write(this.tree);
+        this.stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        System.setOut(this.stdout);
+        try (Stream<Path> paths = Files.walk(this.tree)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int plan() {
+        return new CommandLine(new App()).execute("--threads", this.threads, this.tree.toString());
+    }
+}
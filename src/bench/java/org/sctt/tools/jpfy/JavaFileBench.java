@@ -0,0 +1,87 @@
+package org.sctt.tools.jpfy;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Package extraction from a single file of various header shapes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JavaFileBench {
+
+    /**
+     * Shape of the file header.
+     */
+    @Param({"plain", "license", "annotations", "huge"})
+    public String shape;
+
+    private Path dir;
+
+    private Path file;
+
+    private Buffers buffers;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        this.dir = Files.createTempDirectory("jpfy-bench");
+        this.file = this.dir.resolve("Bench.java");
+        Files.writeString(this.file, JavaFileBench.content(this.shape));
+        this.buffers = new Buffers(8192);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(this.file);
+        Files.delete(this.dir);
+    }
+
+    @Benchmark
+    public Jpkg prefix() {
+        return new PrefixJavaFile(this.file, this.buffers).pkg();
+    }
+
+    @Benchmark
+    public Jpkg impl() {
+        return new JavaFileImpl(this.file).pkg();
+    }
+
+    private static String content(final String shape) {
+        final String body = "\npublic final class Bench {\n}\n";
+        switch (shape) {
+            case "plain":
+                return "package org.sctt.bench;\n" + body;
+            case "license":
+                return "/*\n" + " * Licensed under the Apache License.\n".repeat(40)
+                    + " */\npackage org.sctt.bench;\n" + body;
+            case "annotations":
+                return "// generated\n@Deprecated\n@javax.annotation.Generated(value = \"gen\", "
+                    + "date = \"2024-01-01\")\npackage org.sctt.bench;\n" + body;
+            case "huge":
+                return "package org.sctt.bench;\n" + body
+                    + "// filler line of a very large generated source file\n".repeat(100_000);
+            default:
+                throw new IllegalArgumentException(shape);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+#!/bin/sh
+# Mean wall time of jpfy runs over a small tree: plain JVM, JVM with the
+# AppCDS archive and native executable, for whichever of them are built.
+#
+#   mvn -Pcds -DskipTests package && src/bench/startup.sh
+set -e
+cd "$(dirname "$0")/../.."
+RUNS=${RUNS:-20}
+JAR=$(ls target/java-projectify-*-full.jar | head -n 1)
+TREE=$(mktemp -d)
+trap 'rm -rf "$TREE"' EXIT
+printf 'package org.a;\n' > "$TREE/A.java"
+printf 'package org.b;\n' > "$TREE/B.java"
+printf 'package org.c;\n' > "$TREE/C.java"
+
+measure() {
+    name=$1
+    shift
+    "$@" "$TREE" > /dev/null
+    start=$(date +%s%N)
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        "$@" "$TREE" > /dev/null
+        i=$((i + 1))
+    done
+    end=$(date +%s%N)
+    echo "$name: $(((end - start) / RUNS / 1000000)) ms"
+}
+
+measure "jvm" java -jar "$JAR"
+measure "jvm, C1 only" java -XX:TieredStopAtLevel=1 -jar "$JAR"
+if [ -f target/jpfy.jsa ]; then
+    measure "jvm + cds" java -XX:SharedArchiveFile=target/jpfy.jsa \
+        -XX:TieredStopAtLevel=1 -jar "$JAR"
+fi
+if [ -x target/jpfy ]; then
+    measure "native" target/jpfy
+fi
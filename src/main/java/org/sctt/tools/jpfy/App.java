@@ -4,84 +4,1117 @@ import picocli.CommandLine;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Parameters;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.ProviderNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
-import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
 
 /**
  * Entry point class for the app.
  */
-@Command(name = "jpfy", mixinStandardHelpOptions = true, version = "jpfy 0.0.2-SNAPSHOT",
-        description = "Turns a bunch of java files into proper project")
+@Command(name = "jpfy", mixinStandardHelpOptions = true,
+    version = "jpfy 0.0.2-SNAPSHOT",
+    description = "Turns a bunch of java files into proper project")
 public final class App implements Callable<Integer> {
 
     /**
-     * Source root folder.
+     * Number of bytes read from the start of a Java file to find its
+     * package.
      */
-    @Parameters(description = "Base folder of the files (source root).")
-    private Path src;
+    private static final int PREFIX = 8192;
 
     /**
-     * Whether to copy non-Java files alongside Java files in their respective packages.
+     * Number of completed moves per sync of the journal.
      */
-    @CommandLine.Option(names = {"--copy-resources"}, description = "Copy non-Java files to their corresponding package directories")
+    private static final int JOURNAL_BATCH = 1024;
+
+    /**
+     * Signature a zip archive with entries starts with.
+     */
+    private static final byte[] ZIP = {'P', 'K', 3, 4};
+
+    /**
+     * Signature of an empty zip archive.
+     */
+    private static final byte[] EMPTY_ZIP = {'P', 'K', 5, 6};
+
+    /**
+     * Source root folders.
+     */
+    @Parameters(arity = "0..*", paramLabel = "<src>",
+        description = "Base folders of the files (source roots), "
+            + "or a zip or jar archive of them.")
+    private List<Path> sources = new ArrayList<>();
+
+    /**
+     * Whether to copy non-Java files alongside Java files in their
+     * respective packages.
+     */
+    @CommandLine.Option(names = {"--copy-resources"},
+        description = "Copy non-Java files to their corresponding "
+            + "package directories")
     private boolean copyResources = false;
 
+    /**
+     * Globs of files to walk.
+     */
+    @CommandLine.Option(names = {"--include"}, paramLabel = "<glob>",
+        description = "Only walk files matching this glob, by name or by "
+            + "path if it has a slash (repeatable)")
+    private List<String> includes = new ArrayList<>();
+
+    /**
+     * Globs of files and directories to skip.
+     */
+    @CommandLine.Option(names = {"--exclude"}, paramLabel = "<glob>",
+        description = "Skip files and directories matching this glob, by "
+            + "name or by path if it has a slash (repeatable)")
+    private List<String> excludes = new ArrayList<>();
+
+    /**
+     * Whether to honor .gitignore files.
+     */
+    @CommandLine.Option(names = {"--gitignore"},
+        description = "Skip what .gitignore files ignore, and .git folders")
+    private boolean gitignore;
+
+    /**
+     * Which files are walked, built from the globs.
+     */
+    private Filter filter;
+
+    /**
+     * Number of threads extracting packages.
+     */
+    @CommandLine.Option(names = {"-t", "--threads", "--parallelism"},
+        description = "Threads extracting packages: 1 is serial, "
+            + "0 starts a virtual thread per file (default: ${DEFAULT-VALUE})")
+    private int threads = 1;
+
+    /**
+     * Number of threads listing directories, null for as many as
+     * extracting packages.
+     */
+    @CommandLine.Option(names = {"--walkers"},
+        description = "Threads listing directories: 1 is serial, "
+            + "0 is one per processor (default: as --threads)")
+    private Integer walkers;
+
+    /**
+     * Number of threads copying files found with --stream.
+     */
+    @CommandLine.Option(names = {"--movers"}, defaultValue = "1",
+        description = "Threads copying files as they are found with "
+            + "--stream --copy (default: ${DEFAULT-VALUE})")
+    private int movers;
+
+    /**
+     * Maximum number of moves waiting to be copied with --stream.
+     */
+    @CommandLine.Option(names = {"--queue"}, defaultValue = "1024",
+        description = "Moves waiting to be copied with --stream --copy "
+            + "before the scan pauses (default: ${DEFAULT-VALUE})")
+    private int queue;
+
+    /**
+     * Maximum number of files open at once.
+     */
+    @CommandLine.Option(names = {"--max-open-files"}, defaultValue = "256",
+        description = "Maximum number of files read at once "
+            + "(default: ${DEFAULT-VALUE})")
+    private int openFiles;
+
+    /**
+     * Whether to execute the plan instead of only printing it.
+     */
+    @CommandLine.Option(names = {"--apply"},
+        description = "Move files to their package directories")
+    private boolean apply;
+
+    /**
+     * Whether to copy files to the output folder.
+     */
+    @CommandLine.Option(names = {"--copy"},
+        description = "Copy files to their package directories under --out")
+    private boolean copy;
+
+    /**
+     * Output folder for copies.
+     */
+    @CommandLine.Option(names = {"--out"}, paramLabel = "<dir>",
+        description = "Folder to copy files to, required by --copy")
+    private Path out;
+
+    /**
+     * Whether to hard link copies of identical files.
+     */
+    @CommandLine.Option(names = {"--dedup"},
+        description = "Hard link copies of files with identical content "
+            + "instead of copying them again, requires --copy")
+    private boolean dedup;
+
+    /**
+     * Directory for sorted runs of the plan, null to keep it in memory.
+     */
+    @CommandLine.Option(names = {"--spill"}, paramLabel = "<dir>",
+        description = "Keep at most --spill-size moves in memory, writing "
+            + "sorted runs to this folder; moves are applied by directory; "
+            + "not with --copy-resources")
+    private Path spill;
+
+    /**
+     * Maximum number of moves in memory with --spill.
+     */
+    @CommandLine.Option(names = {"--spill-size"}, defaultValue = "262144",
+        description = "Moves kept in memory with --spill "
+            + "(default: ${DEFAULT-VALUE})")
+    private int spillSize;
+
+    /**
+     * Journal of moves.
+     */
+    @CommandLine.Option(names = {"--journal"}, paramLabel = "<file>",
+        description = "Record moves of --apply in this file")
+    private Path journal;
+
+    /**
+     * Whether to finish moves of an interrupted run.
+     */
+    @CommandLine.Option(names = {"--resume"},
+        description = "Finish moves recorded in --journal")
+    private boolean resume;
+
+    /**
+     * Whether to undo moves of a run.
+     */
+    @CommandLine.Option(names = {"--rollback"},
+        description = "Undo moves recorded in --journal")
+    private boolean rollback;
+
+    /**
+     * Format of printed moves.
+     */
+    @CommandLine.Option(names = {"--format"}, defaultValue = "text",
+        description = "Format of printed moves: text, tsv or jsonl "
+            + "(default: ${DEFAULT-VALUE})")
+    private String format;
+
+    /**
+     * Whether to print moves as they are found.
+     */
+    @CommandLine.Option(names = {"--stream"},
+        description = "Print moves as soon as they are found, in no "
+            + "particular order, without keeping the plan in memory")
+    private boolean stream;
+
+    /**
+     * Whether to keep watching the tree for new files.
+     */
+    @CommandLine.Option(names = {"--watch"},
+        description = "Keep moving new Java files into package directories")
+    private boolean watch;
+
+    /**
+     * Debounce interval of watch mode.
+     */
+    @CommandLine.Option(names = {"--debounce"}, paramLabel = "<ms>",
+        defaultValue = "20",
+        description = "Quiet time before a changed file is placed in "
+            + "--watch mode (default: ${DEFAULT-VALUE})")
+    private long debounce;
+
+    /**
+     * File to cache packages in between runs.
+     */
+    @CommandLine.Option(names = {"--cache"}, paramLabel = "<file>",
+        description = "Cache packages of unchanged files in this file")
+    private Path cacheFile;
+
+    /**
+     * Whether to print statistics of the run.
+     */
+    @CommandLine.Option(names = {"--stats"},
+        description = "Print timings and counters of the run to stderr")
+    private boolean statistics;
+
+    /**
+     * File to write statistics to in JSON.
+     */
+    @CommandLine.Option(names = {"--stats-json"}, paramLabel = "<file>",
+        description = "Write timings and counters of the run in JSON")
+    private Path statsJson;
+
+    /**
+     * Socket to serve runs on.
+     */
+    @CommandLine.Option(names = {"--daemon"}, paramLabel = "<socket>",
+        description = "Serve runs over this Unix domain socket, keeping "
+            + "packages in memory, until interrupted")
+    private Path daemon;
+
+    /**
+     * Socket of a daemon to run on.
+     */
+    @CommandLine.Option(names = {"--connect"}, paramLabel = "<socket>",
+        description = "Run on the daemon serving this socket")
+    private Path connect;
+
+    /**
+     * Root folders to walk: the source folders, or the root of the source
+     * archive.
+     */
+    private List<Path> roots;
+
+    /**
+     * Cache of packages, null when caching is off.
+     */
+    private Cache cache;
+
+    /**
+     * Statistics of the run, null when not asked for.
+     */
+    private Stats stats;
+
+    /**
+     * Buffers for reading Java file headers.
+     */
+    private final Buffers buffers = new Buffers(App.PREFIX);
+
+    /**
+     * Stream printed moves go to.
+     */
+    private final PrintStream stdout;
+
+    /**
+     * Stream warnings and errors go to.
+     */
+    private final PrintStream stderr;
+
+    /**
+     * In-memory cache shared between runs served by a daemon, null if not
+     * served.
+     */
+    private final Cache shared;
+
+    /**
+     * Command line spec.
+     */
+    @CommandLine.Spec
+    private CommandLine.Model.CommandSpec spec;
+
+    /**
+     * Ctor.
+     */
+    public App() {
+        this(System.out, System.err, null);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param moves Stream printed moves go to.
+     * @param errors Stream warnings and errors go to.
+     * @param memory Cache shared between runs, or null.
+     */
+    public App(final PrintStream moves, final PrintStream errors,
+        final Cache memory) {
+        this.stdout = moves;
+        this.stderr = errors;
+        this.shared = memory;
+    }
+
     @Override
     public Integer call() {
-        final Map<Path, Path> move = new HashMap<>();
-        try (Stream<Path> paths = Files.walk(this.src)) {
-            paths.filter(Files::isRegularFile)
-                .forEach(f -> {
-                    if (f.getFileName().toString().endsWith(".java")) {
-                        // Handle Java files - organize by package
-                        move.put(
-                            f,
-                            this.src.resolve(new JavaFileImpl(f).pkg().asPath())
-                                .resolve(f.getFileName())
-                        );
-                    } else if (copyResources) {
-                        // Handle non-Java files if --copy-resources is enabled
-                        // Try to find corresponding Java file in same directory
-                        String fileNameWithoutExt = f.getFileName().toString().replaceAll("\\.([^.]*)$", "");
-                        Path correspondingJavaFile = f.getParent().resolve(fileNameWithoutExt + ".java");
-
-                        if (Files.exists(correspondingJavaFile)) {
-                            // If there's a corresponding Java file, place it in the same package directory
-                            Path javaDestination = this.src.resolve(new JavaFileImpl(correspondingJavaFile).pkg().asPath());
-                            move.put(f, javaDestination.resolve(f.getFileName()));
-                        } else {
-                            // If no corresponding Java file, check if it's in a package directory
-                            try (Stream<Path> javaFiles = Files.walk(this.src, 1).filter(p -> p.toString().endsWith(".java"))) {
-                                javaFiles.findFirst().ifPresent(jf -> {
-                                    // Use the package of the first Java file we find
-                                    Path javaDestination = this.src.resolve(new JavaFileImpl(jf).pkg().asPath());
-                                    move.put(f, javaDestination.resolve(f.getFileName()));
-                                });
-                            } catch (Exception e) {
-                                // If we can't process, skip this file
-                                System.err.println("Warning: Could not determine destination for resource file: " + f);
-                            }
+        this.validate();
+        if ((this.statistics || this.statsJson != null)
+            && this.connect == null) {
+            this.stats = new Stats();
+        }
+        final int code = this.dispatch();
+        if (this.stats != null) {
+            this.report();
+        }
+        return code;
+    }
+
+    /**
+     * Run the mode asked for.
+     *
+     * @return Exit code.
+     */
+    private int dispatch() {
+        if (this.daemon != null) {
+            return this.serve();
+        }
+        if (this.connect != null) {
+            return this.forward();
+        }
+        if (this.resume || this.rollback) {
+            return this.replay();
+        }
+        if (this.sources.isEmpty() || !App.archive(this.sources.get(0))) {
+            this.roots = this.sources;
+            return this.run();
+        }
+        try (FileSystem zip = FileSystems.newFileSystem(this.sources.get(0))) {
+            this.roots = List.of(zip.getRootDirectories().iterator().next());
+            return this.run();
+        } catch (final ProviderNotFoundException e) {
+            this.stderr.println(
+                "Cannot open archive " + this.sources.get(0) + ": " + e
+            );
+            return 1;
+        } catch (final IOException e) {
+            e.printStackTrace(this.stderr);
+            return 1;
+        }
+    }
+
+    /**
+     * Plan and execute moves within the source root.
+     *
+     * @return Exit code.
+     */
+    private int run() {
+        if (this.watch) {
+            return this.watch();
+        }
+        if (this.spill != null) {
+            return this.spilled();
+        }
+        if (this.stream && this.copy) {
+            return this.pipe();
+        }
+        if (this.stream) {
+            return this.stream();
+        }
+        final Plan plan = new Plan();
+        try {
+            this.plan(plan);
+        } catch (final Exception e) {
+            e.printStackTrace(this.stderr);
+            return 1;
+        }
+
+        if (plan.isEmpty()) {
+            this.stderr.println(
+                "No files found to process in: " + this.names()
+            );
+            return 0;
+        }
+
+        Plan target = plan;
+        if (this.copy) {
+            target = this.rebased(plan);
+        }
+        this.print(target);
+        int code = 0;
+        if (this.apply) {
+            code = this.move(target);
+        } else if (this.copy) {
+            code = this.copy(target);
+        }
+        return code;
+    }
+
+    /**
+     * Check that options make sense together.
+     */
+    private void validate() {
+        String error = null;
+        if (this.copy && this.apply) {
+            error = "--copy and --apply are exclusive";
+        } else if (this.copy && this.out == null) {
+            error = "--copy requires --out";
+        } else if (this.dedup && !this.copy) {
+            error = "--dedup requires --copy";
+        } else if (this.resume && this.rollback) {
+            error = "--resume and --rollback are exclusive";
+        } else if ((this.resume || this.rollback) && this.journal == null) {
+            error = "--resume and --rollback require --journal";
+        } else if (this.watch && (this.copy || this.journal != null)) {
+            error = "--watch only moves files";
+        } else if (this.journal != null && this.copy) {
+            error = "--journal only records moves";
+        } else if (this.watch
+            && (this.statistics || this.statsJson != null)) {
+            error = "--watch runs until interrupted, without --stats";
+        } else if (this.watch && this.cacheFile != null) {
+            error = "--watch parses files once, without --cache";
+        } else if (this.stream && (this.apply || this.watch || this.dedup)) {
+            error = "--stream only prints or copies files";
+        } else if (this.movers < 1 || this.queue < 1) {
+            error = "--movers and --queue must be positive";
+        } else if (this.spill != null && (this.stream || this.watch
+            || this.dedup || this.journal != null || this.copyResources)) {
+            error = "--spill cannot be combined with --stream, --watch, "
+                + "--dedup, --journal or --copy-resources";
+        } else if (this.spillSize < 1) {
+            error = "--spill-size must be positive";
+        } else if (!App.known(this.format)) {
+            error = "Unknown --format: " + this.format;
+        } else if (this.shared != null
+            && (this.daemon != null || this.connect != null || this.watch)) {
+            error = "--daemon, --connect and --watch are not served";
+        } else if (this.daemon != null
+            && (this.connect != null || !this.sources.isEmpty())) {
+            error = "--daemon only takes a socket";
+        } else if (this.sources.isEmpty() && !this.resume && !this.rollback
+            && this.daemon == null) {
+            error = "Missing required parameter: '<src>'";
+        } else if (this.watch && this.sources.size() > 1) {
+            error = "--watch takes a single source folder";
+        } else if (this.notArchive() != null) {
+            error = "Not a zip or jar archive: " + this.notArchive();
+        } else if (this.sources.size() > 1
+            && this.sources.stream().anyMatch(App::archive)) {
+            error = "An archive must be the only source";
+        } else if (this.sources.stream().anyMatch(App::archive)
+            && (this.apply || this.watch || this.journal != null)) {
+            error = "Archives are read-only, use --copy to extract them";
+        } else {
+            error = Projectify.overlap(this.sources);
+        }
+        if (error == null) {
+            try {
+                this.filter =
+                    new Filter(this.includes, this.excludes, this.gitignore);
+            } catch (final IllegalArgumentException e) {
+                error = "Invalid glob: " + e.getMessage();
+            }
+        }
+        if (error != null) {
+            throw new CommandLine.ParameterException(
+                this.spec.commandLine(), error
+            );
+        }
+    }
+
+    /**
+     * Serve runs on the socket until interrupted.
+     *
+     * @return Exit code.
+     */
+    private int serve() {
+        this.stderr.println("Serving on " + this.daemon);
+        try {
+            new Daemon(this.daemon).run();
+        } catch (final ClosedByInterruptException e) {
+            Thread.currentThread().interrupt();
+        } catch (final IOException e) {
+            e.printStackTrace(this.stderr);
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Run on the daemon with the same arguments, except the socket.
+     *
+     * @return Exit code of the run.
+     */
+    private int forward() {
+        final List<String> args = new ArrayList<>(
+            this.spec.commandLine().getParseResult().originalArgs()
+        );
+        final int idx = args.indexOf("--connect");
+        if (idx >= 0) {
+            args.subList(idx, idx + 2).clear();
+        } else {
+            args.removeIf(arg -> arg.startsWith("--connect="));
+        }
+        try {
+            return new Client(this.connect, this.stdout, this.stderr)
+                .call(args);
+        } catch (final IOException e) {
+            this.stderr.println(
+                "Error: Could not reach daemon on " + this.connect + ": " + e
+            );
+            return 1;
+        }
+    }
+
+    /**
+     * Whether the source is an archive rather than a folder.
+     *
+     * @param path Source path.
+     * @return True if it is a regular file.
+     */
+    private static boolean archive(final Path path) {
+        return path != null && Files.isRegularFile(path);
+    }
+
+    /**
+     * Whether the file starts like a zip archive.
+     *
+     * @param file Regular file.
+     * @return True if it has a zip signature.
+     */
+    private static boolean zip(final Path file) {
+        final byte[] head = new byte[App.ZIP.length];
+        boolean result;
+        try (InputStream in = Files.newInputStream(file)) {
+            result = in.readNBytes(head, 0, head.length) == head.length
+                && (Arrays.equals(head, App.ZIP)
+                || Arrays.equals(head, App.EMPTY_ZIP));
+        } catch (final IOException ex) {
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Source file given in place of a folder which is no archive.
+     *
+     * @return File, or null if there is none.
+     */
+    private Path notArchive() {
+        return this.sources.stream()
+            .filter(src -> App.archive(src) && !App.zip(src))
+            .findFirst().orElse(null);
+    }
+
+    /**
+     * Whether the name is of a known format.
+     *
+     * @param name Name of format.
+     * @return True if known.
+     */
+    private static boolean known(final String name) {
+        boolean result = true;
+        try {
+            Format.of(name);
+        } catch (final IllegalArgumentException ex) {
+            result = false;
+        }
+        return result;
+    }
+
+    /**
+     * Print moves as soon as they are found, without keeping them.
+     *
+     * @return Exit code.
+     */
+    private int stream() {
+        final Output output = this.output();
+        try {
+            this.plan(output);
+            output.flush();
+        } catch (final Exception e) {
+            e.printStackTrace(this.stderr);
+            return 1;
+        }
+        if (output.size() == 0) {
+            this.stderr.println(
+                "No files found to process in: " + this.names()
+            );
+        }
+        return 0;
+    }
+
+    /**
+     * Copy files as soon as they are found, while the scan goes on.
+     *
+     * <p>Moves go through a bounded queue to copying threads, so a slow
+     * destination pauses the scan rather than piling up moves.
+     *
+     * @return Exit code.
+     */
+    private int pipe() {
+        final Output output = this.output();
+        final Map<Path, IOException> failures = new ConcurrentSkipListMap<>();
+        final Set<Path> dirs = ConcurrentHashMap.newKeySet();
+        final Transfer transfer = new CopyTransfer();
+        final long start = System.nanoTime();
+        try {
+            try (Stage stage = new Stage(
+                (from, to) -> {
+                    output.put(from, to);
+                    try {
+                        if (!dirs.contains(to.getParent())) {
+                            Files.createDirectories(to.getParent());
+                            dirs.add(to.getParent());
                         }
+                        transfer.apply(from, to);
+                    } catch (final IOException e) {
+                        failures.put(from, e);
                     }
-                });
-        } catch (Exception e) {
-            e.printStackTrace();
+                },
+                this.movers, this.queue
+            )) {
+                this.plan(
+                    (from, to) -> stage.put(from, this.rebased(from, to))
+                );
+            }
+            output.flush();
+        } catch (final Exception e) {
+            e.printStackTrace(this.stderr);
             return 1;
         }
+        this.phase("transfer", start);
+        if (output.size() == 0) {
+            this.stderr.println(
+                "No files found to process in: " + this.names()
+            );
+            return 0;
+        }
+        return this.summary((int) output.size(), failures);
+    }
 
-        if (move.isEmpty()) {
-            System.err.println("No files found to process in: " + src);
+    /**
+     * Plan in bounded memory, then print and apply moves in order of
+     * destination directory.
+     *
+     * @return Exit code.
+     */
+    private int spilled() {
+        final Output output = this.output();
+        try (Spill plan = new Spill(
+            this.spill, this.spillSize, this.roots.get(0).getFileSystem()
+        )) {
+            this.plan(plan);
+            if (plan.size() == 0) {
+                this.stderr.println(
+                    "No files found to process in: " + this.names()
+                );
+                return 0;
+            }
+            final long start = System.nanoTime();
+            if (!this.apply && !this.copy) {
+                plan.forEach(output::put);
+                output.flush();
+                this.phase("print", start);
+                return 0;
+            }
+            Transfer transfer = new MoveTransfer();
+            if (this.copy) {
+                transfer = new CopyTransfer();
+            }
+            final Map<Path, IOException> failures =
+                new Batch(transfer, this.threads, this.openFiles).apply(
+                    sink -> App.visit(
+                        plan,
+                        (from, to) -> {
+                            Path dest = to;
+                            if (this.copy) {
+                                dest = this.rebased(from, to);
+                            }
+                            output.put(from, dest);
+                            sink.put(from, dest);
+                        }
+                    )
+                );
+            output.flush();
+            this.phase("transfer", start);
+            return this.summary((int) plan.size(), failures);
+        } catch (final Exception e) {
+            e.printStackTrace(this.stderr);
             return 1;
         }
+    }
+
+    /**
+     * Visit moves of a spilled plan where checked exceptions cannot go.
+     *
+     * @param plan Plan to visit.
+     * @param action Consumer of source and destination.
+     */
+    private static void visit(final Spill plan,
+        final BiConsumer<Path, Path> action) {
+        try {
+            plan.forEach(action);
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
 
-        move.entrySet().forEach(System.out::println);
+    /**
+     * Find where every file of the source tree has to go.
+     *
+     * @param plan Where to put moves.
+     * @throws IOException If walking the tree fails.
+     */
+    private void plan(final Sink plan) throws IOException {
+        long start = System.nanoTime();
+        if (this.cacheFile != null) {
+            this.cache = new Cache(this.cacheFile);
+            try {
+                this.cache.load();
+            } catch (final IOException e) {
+                this.stderr.println(
+                    "Warning: Ignoring unreadable cache: " + this.cacheFile
+                );
+            }
+            this.phase("cache load", start);
+        } else {
+            this.cache = this.shared;
+        }
+        final Projectify planner = new Projectify(this.roots)
+            .threads(this.threads)
+            .limit(this.openFiles)
+            .resources(this.copyResources)
+            .filter(this.filter)
+            .omitPlaced(!this.copy)
+            .javas(this::java)
+            .stats(this.stats)
+            .warnings(this.stderr);
+        if (this.walkers != null) {
+            planner.walkers(this.walkers);
+        }
+        planner.plan(plan);
+        if (!this.copy && planner.placed() > 0) {
+            this.stderr.println(
+                String.format("%d files already in place", planner.placed())
+            );
+        }
+        if (this.cacheFile != null) {
+            start = System.nanoTime();
+            try {
+                this.cache.save();
+            } catch (final IOException e) {
+                this.stderr.println(
+                    "Warning: Could not save cache: " + this.cacheFile
+                );
+            }
+            this.phase("cache save", start);
+        }
+    }
+
+    /**
+     * Move files of the plan, recording them in the journal if asked to.
+     *
+     * @param plan Plan to execute.
+     * @return Exit code.
+     */
+    private int move(final Plan plan) {
+        if (this.journal == null) {
+            return this.execute(plan, new MoveTransfer());
+        }
+        try (Journal log = new Journal(this.journal, App.JOURNAL_BATCH)) {
+            log.begin(plan);
+            return this.execute(plan, log.recording(new MoveTransfer()));
+        } catch (final IOException e) {
+            e.printStackTrace(this.stderr);
+            return 1;
+        }
+    }
+
+    /**
+     * Move Java files into their packages as they appear, until
+     * interrupted.
+     *
+     * @return Exit code.
+     */
+    private int watch() {
+        final Output output = this.output();
+        try {
+            new Watch(
+                this.roots.get(0), this::java, new MoveTransfer(),
+                this.debounce,
+                (from, to) -> {
+                    output.put(from, to);
+                    App.flush(output);
+                },
+                this.stderr, this.filter
+            ).run();
+        } catch (final IOException e) {
+            e.printStackTrace(this.stderr);
+            return 1;
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         return 0;
     }
 
+    /**
+     * Resume or roll back moves recorded in the journal.
+     *
+     * @return Exit code.
+     */
+    private int replay() {
+        try (Journal log = new Journal(this.journal, App.JOURNAL_BATCH)) {
+            final Plan plan;
+            final Transfer transfer;
+            if (this.resume) {
+                plan = log.pending();
+                transfer = log.recording(new MoveTransfer());
+            } else {
+                plan = log.completed();
+                transfer = log.undoing(new MoveTransfer());
+            }
+            this.print(plan);
+            final int code = this.execute(plan, transfer);
+            if (this.rollback) {
+                log.prune();
+            }
+            return code;
+        } catch (final IOException e) {
+            e.printStackTrace(this.stderr);
+            return 1;
+        }
+    }
+
+    /**
+     * Print the plan.
+     *
+     * @param plan Plan to print.
+     */
+    private void print(final Plan plan) {
+        final long start = System.nanoTime();
+        final Output output = this.output();
+        plan.forEach(output::put);
+        App.flush(output);
+        this.phase("print", start);
+    }
+
+    /**
+     * Output for moves in the chosen format.
+     *
+     * @return Output to standard output.
+     */
+    private Output output() {
+        return new Output(this.stdout, Format.of(this.format));
+    }
+
+    /**
+     * Flush printed moves.
+     *
+     * @param output Output to flush.
+     */
+    private static void flush(final Output output) {
+        try {
+            output.flush();
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Source root a file is under.
+     *
+     * @param file File in one of the source trees.
+     * @return Source root.
+     */
+    private Path rootOf(final Path file) {
+        Path result = this.roots.get(0);
+        for (final Path root : this.roots) {
+            if (file.startsWith(root)) {
+                result = root;
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Source folders as given, for messages.
+     *
+     * @return Comma separated sources.
+     */
+    private String names() {
+        return this.sources.stream().map(Path::toString)
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * Same plan with destinations under the output folder.
+     *
+     * @param plan Plan with destinations under source root.
+     * @return Rebased plan.
+     */
+    private Plan rebased(final Plan plan) {
+        final Plan result = new Plan();
+        plan.forEach((from, to) -> result.put(from, this.rebased(from, to)));
+        return result;
+    }
+
+    /**
+     * Destination under the output folder.
+     *
+     * @param from Source file.
+     * @param to Destination under its source root.
+     * @return Rebased destination.
+     */
+    private Path rebased(final Path from, final Path to) {
+        return this.out.resolve(this.rootOf(from).relativize(to).toString());
+    }
+
+    /**
+     * Execute the plan, reporting failed files.
+     *
+     * @param plan Plan to execute.
+     * @param transfer How to transfer files.
+     * @return Exit code.
+     */
+    private int execute(final Plan plan, final Transfer transfer) {
+        return this.summary(plan.size(), this.transfer(plan, transfer));
+    }
+
+    /**
+     * Copy files of the plan, hard linking duplicates if asked to.
+     *
+     * @param plan Plan to execute.
+     * @return Exit code.
+     */
+    private int copy(final Plan plan) {
+        if (!this.dedup) {
+            return this.execute(plan, new CopyTransfer());
+        }
+        final long start = System.nanoTime();
+        final Dedup finder = new Dedup(this.threads, this.openFiles);
+        final Map<Path, Path> dups = finder.apply(plan);
+        this.phase("dedup", start);
+        final Plan originals = new Plan();
+        final Plan links = new Plan();
+        final Map<Path, Path> targets = new HashMap<>();
+        final Map<Path, List<Path>> groups = new TreeMap<>();
+        plan.forEach(
+            (from, to) -> {
+                final Path original = dups.get(from);
+                if (original == null) {
+                    originals.put(from, to);
+                } else {
+                    links.put(from, to);
+                    targets.put(from, plan.get(original));
+                    groups.computeIfAbsent(original, key -> new ArrayList<>())
+                        .add(from);
+                }
+            }
+        );
+        groups.forEach(
+            (original, same) -> this.stderr.println(
+                "Duplicates of " + original + ": " + same
+            )
+        );
+        this.stderr.println(
+            String.format(
+                "%d duplicate groups, %d duplicates, %d bytes saved",
+                groups.size(), dups.size(), finder.saved()
+            )
+        );
+        final Map<Path, IOException> failures = new TreeMap<>(
+            this.transfer(originals, new CopyTransfer())
+        );
+        failures.putAll(
+            this.transfer(links, new LinkTransfer(targets, new CopyTransfer()))
+        );
+        return this.summary(plan.size(), failures);
+    }
+
+    /**
+     * Execute the plan.
+     *
+     * @param plan Plan to execute.
+     * @param transfer How to transfer files.
+     * @return Files which failed.
+     */
+    private Map<Path, IOException> transfer(final Plan plan,
+        final Transfer transfer) {
+        final long start = System.nanoTime();
+        final Map<Path, IOException> failures =
+            new Batch(transfer, this.threads, this.openFiles).apply(plan);
+        this.phase("transfer", start);
+        return failures;
+    }
+
+    /**
+     * Report failed files and how many files are in place.
+     *
+     * @param total Number of files planned.
+     * @param failures Files which failed.
+     * @return Exit code.
+     */
+    private int summary(final int total,
+        final Map<Path, IOException> failures) {
+        failures.forEach(
+            (file, ex) -> this.stderr.println(
+                "Error: Could not transfer " + file + ": " + ex
+            )
+        );
+        this.stderr.println(
+            String.format(
+                "%d of %d files in place, %d failed",
+                total - failures.size(), total, failures.size()
+            )
+        );
+        int code = 0;
+        if (!failures.isEmpty()) {
+            code = 1;
+        }
+        return code;
+    }
+
+    /**
+     * Java file to extract package from.
+     *
+     * @param file Path to the file.
+     * @return Java file.
+     */
+    private JavaFile java(final Path file) {
+        JavaFile java;
+        if (this.stats == null) {
+            java = new PrefixJavaFile(file, this.buffers, null, this.stderr);
+        } else {
+            java = this.stats.measured(
+                new PrefixJavaFile(
+                    file, this.buffers, this.stats.bytes(), this.stderr
+                )
+            );
+        }
+        if (this.cache != null) {
+            java = new CachedJavaFile(file, this.cache, java);
+        }
+        return java;
+    }
+
+    /**
+     * Add wall time of a phase to statistics, if collected.
+     *
+     * @param name Name of the phase.
+     * @param start Value of {@link System#nanoTime()} at its start.
+     */
+    private void phase(final String name, final long start) {
+        if (this.stats != null) {
+            this.stats.phase(name, start);
+        }
+    }
+
+    /**
+     * Print and write statistics as asked for.
+     */
+    private void report() {
+        if (this.statistics) {
+            this.stats.print(this.stderr);
+        }
+        if (this.statsJson != null) {
+            try {
+                Files.writeString(this.statsJson, this.stats.json() + "\n");
+            } catch (final IOException e) {
+                this.stderr.println(
+                    "Warning: Could not write stats: " + this.statsJson
+                );
+            }
+        }
+    }
+
     /**
      * Main method.
      * @param args Arguments
@@ -0,0 +1,152 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+/**
+ * Applies a plan with a transfer.
+ *
+ * <p>Moves are grouped by destination directory: every directory is
+ * created once, and groups are processed in parallel. A failure of a
+ * single file is recorded and does not stop the rest of the batch.
+ */
+public final class Batch {
+
+    /**
+     * How files are transferred.
+     */
+    private final Transfer transfer;
+
+    /**
+     * Number of threads, as in {@link Workers}.
+     */
+    private final int threads;
+
+    /**
+     * Maximum number of groups in flight.
+     */
+    private final int limit;
+
+    /**
+     * Ctor.
+     *
+     * @param how How files are transferred.
+     * @param count Number of threads, as in {@link Workers}.
+     * @param inflight Maximum number of groups in flight.
+     */
+    public Batch(final Transfer how, final int count, final int inflight) {
+        this.transfer = how;
+        this.threads = count;
+        this.limit = inflight;
+    }
+
+    /**
+     * Apply the plan. Files already at their destination are skipped.
+     *
+     * @param plan Plan to apply.
+     * @return Failures by source file, empty if all files succeeded.
+     */
+    public Map<Path, IOException> apply(final Plan plan) {
+        final Map<Path, List<Map.Entry<Path, Path>>> groups = new TreeMap<>();
+        plan.forEach(
+            (from, to) -> {
+                if (!from.equals(to)) {
+                    groups.computeIfAbsent(
+                        to.getParent(), dir -> new ArrayList<>()
+                    ).add(Map.entry(from, to));
+                }
+            }
+        );
+        final Map<Path, IOException> failures = new ConcurrentSkipListMap<>();
+        try (Workers workers = new Workers(this.threads, this.limit)) {
+            groups.forEach(
+                (dir, group) -> workers.submit(
+                    () -> this.group(dir, group, failures)
+                )
+            );
+            workers.await();
+        }
+        return failures;
+    }
+
+    /**
+     * Apply moves arriving in order of destination directory, holding only
+     * the groups in flight in memory.
+     *
+     * @param moves Feeds moves, sorted by destination directory, to the
+     *  sink it is given, from the calling thread.
+     * @return Failures by source file, empty if all files succeeded.
+     */
+    public Map<Path, IOException> apply(final Consumer<Sink> moves) {
+        final Map<Path, IOException> failures = new ConcurrentSkipListMap<>();
+        final List<Map.Entry<Path, Path>> group = new ArrayList<>();
+        try (Workers workers = new Workers(this.threads, this.limit)) {
+            moves.accept(
+                (from, to) -> {
+                    if (!from.equals(to)) {
+                        if (!group.isEmpty() && !group.get(0).getValue()
+                            .getParent().equals(to.getParent())) {
+                            this.submit(workers, group, failures);
+                        }
+                        group.add(Map.entry(from, to));
+                    }
+                }
+            );
+            this.submit(workers, group, failures);
+            workers.await();
+        }
+        return failures;
+    }
+
+    /**
+     * Schedule a complete group and start a new one.
+     *
+     * @param workers Workers to run the group on.
+     * @param group Moves into a single directory, cleared.
+     * @param failures Where to record failures.
+     */
+    private void submit(final Workers workers,
+        final List<Map.Entry<Path, Path>> group,
+        final Map<Path, IOException> failures) {
+        if (!group.isEmpty()) {
+            final List<Map.Entry<Path, Path>> full = List.copyOf(group);
+            group.clear();
+            workers.submit(
+                () -> this.group(
+                    full.get(0).getValue().getParent(), full, failures
+                )
+            );
+        }
+    }
+
+    /**
+     * Transfer files into a single directory.
+     *
+     * @param dir Destination directory.
+     * @param group Moves into the directory.
+     * @param failures Where to record failures.
+     */
+    private void group(final Path dir, final List<Map.Entry<Path, Path>> group,
+        final Map<Path, IOException> failures) {
+        try {
+            Files.createDirectories(dir);
+        } catch (final IOException ex) {
+            group.forEach(move -> failures.put(move.getKey(), ex));
+            return;
+        }
+        for (final Map.Entry<Path, Path> move : group) {
+            try {
+                this.transfer.apply(move.getKey(), move.getValue());
+            } catch (final IOException ex) {
+                failures.put(move.getKey(), ex);
+            }
+        }
+    }
+}
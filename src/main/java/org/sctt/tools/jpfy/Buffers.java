@@ -0,0 +1,58 @@
+package org.sctt.tools.jpfy;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Pool of reusable direct byte buffers of the same capacity.
+ */
+public final class Buffers {
+
+    /**
+     * Capacity of every buffer.
+     */
+    private final int capacity;
+
+    /**
+     * Buffers ready to be taken.
+     */
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Ctor.
+     *
+     * @param size Capacity of each buffer in bytes.
+     */
+    public Buffers(final int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                "Buffer capacity must be positive"
+            );
+        }
+        this.capacity = size;
+    }
+
+    /**
+     * Take a cleared buffer, allocating a new one if the pool is empty.
+     *
+     * @return Buffer ready to be written to.
+     */
+    public ByteBuffer take() {
+        ByteBuffer buf = this.free.poll();
+        if (buf == null) {
+            buf = ByteBuffer.allocateDirect(this.capacity);
+        }
+        buf.clear();
+        return buf;
+    }
+
+    /**
+     * Return a buffer taken earlier back to the pool.
+     *
+     * @param buf Buffer no longer in use.
+     */
+    public void give(final ByteBuffer buf) {
+        this.free.offer(buf);
+    }
+}
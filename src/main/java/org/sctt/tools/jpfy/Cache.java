@@ -0,0 +1,230 @@
+package org.sctt.tools.jpfy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * On-disk cache of packages of Java files, keyed by path, size and
+ * modification time.
+ *
+ * <p>Only entries looked up during the run are saved back, so files
+ * which disappeared from the tree are evicted automatically. A cache
+ * file of unknown format is ignored. A cache which is never loaded nor
+ * saved keeps packages in memory for as long as it lives.
+ */
+public final class Cache {
+
+    /**
+     * Marker at the start of the cache file.
+     */
+    private static final int MAGIC = 0x4A504659;
+
+    /**
+     * Version of the binary format.
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Fewest bytes a stored package name takes.
+     */
+    private static final int NAME_BYTES = 2;
+
+    /**
+     * Fewest bytes a stored entry takes: key, size, time and package.
+     */
+    private static final int ENTRY_BYTES = 22;
+
+    /**
+     * Cache file.
+     */
+    private final Path file;
+
+    /**
+     * Entries loaded from disk.
+     */
+    private final Map<String, Entry> loaded = new ConcurrentHashMap<>();
+
+    /**
+     * Entries looked up during this run.
+     */
+    private final Map<String, Entry> used = new ConcurrentHashMap<>();
+
+    /**
+     * Ctor.
+     *
+     * @param path Cache file, which may not exist yet, or null if the cache
+     *  is only kept in memory.
+     */
+    public Cache(final Path path) {
+        this.file = path;
+    }
+
+    /**
+     * Load entries from the cache file, if it exists.
+     *
+     * @throws IOException If file is corrupted, in which case the cache
+     *  stays empty.
+     */
+    public void load() throws IOException {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(this.file))
+        )) {
+            if (in.readInt() != Cache.MAGIC || in.readInt() != Cache.VERSION) {
+                return;
+            }
+            final long bytes = Files.size(this.file);
+            final Jpkg[] pkgs =
+                new Jpkg[Cache.count(in, bytes / Cache.NAME_BYTES)];
+            for (int idx = 0; idx < pkgs.length; ++idx) {
+                pkgs[idx] = new JpkgImpl(in.readUTF());
+            }
+            final int count = Cache.count(in, bytes / Cache.ENTRY_BYTES);
+            for (int idx = 0; idx < count; ++idx) {
+                final String key = in.readUTF();
+                final long size = in.readLong();
+                final long mtime = in.readLong();
+                final int pkg = in.readInt();
+                if (pkg < 0 || pkg >= pkgs.length) {
+                    throw new IOException(
+                        "Corrupted cache, package index out of range: " + pkg
+                    );
+                }
+                this.loaded.put(key, new Entry(size, mtime, pkgs[pkg]));
+            }
+        } catch (final NoSuchFileException ex) {
+            this.loaded.clear();
+        } catch (final IOException ex) {
+            this.loaded.clear();
+            throw ex;
+        }
+    }
+
+    /**
+     * Read a count of stored items.
+     *
+     * @param in Cache file stream.
+     * @param max Most items the file can hold.
+     * @return Count.
+     * @throws IOException If the count is negative or too large.
+     */
+    private static int count(final DataInputStream in, final long max)
+        throws IOException {
+        final int count = in.readInt();
+        if (count < 0 || count > max) {
+            throw new IOException("Corrupted cache, bad count: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Write entries used during this run to the cache file, replacing it
+     * atomically.
+     *
+     * @throws IOException If writing fails.
+     */
+    public void save() throws IOException {
+        final Map<String, Integer> index = new HashMap<>();
+        final List<String> names = new ArrayList<>();
+        for (final Entry entry : this.used.values()) {
+            final String name = entry.pkg.name();
+            if (!index.containsKey(name)) {
+                index.put(name, names.size());
+                names.add(name);
+            }
+        }
+        final Path tmp = this.file.resolveSibling(
+            this.file.getFileName() + ".tmp"
+        );
+        try (DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(tmp))
+        )) {
+            out.writeInt(Cache.MAGIC);
+            out.writeInt(Cache.VERSION);
+            out.writeInt(names.size());
+            for (final String name : names) {
+                out.writeUTF(name);
+            }
+            out.writeInt(this.used.size());
+            for (final Map.Entry<String, Entry> item : this.used.entrySet()) {
+                final Entry entry = item.getValue();
+                out.writeUTF(item.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.mtime);
+                out.writeInt(index.get(entry.pkg.name()));
+            }
+        }
+        Files.move(
+            tmp, this.file,
+            StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE
+        );
+    }
+
+    /**
+     * Package of a file, taken from cache when the file is unchanged.
+     *
+     * @param key Absolute path of the file.
+     * @param size Size of the file.
+     * @param mtime Modification time of the file.
+     * @param origin Where to get package from if cache is stale.
+     * @return Package.
+     */
+    public Jpkg pkg(final String key, final long size, final long mtime,
+        final Supplier<Jpkg> origin) {
+        Entry entry = this.used.get(key);
+        if (entry == null) {
+            entry = this.loaded.get(key);
+        }
+        if (entry == null || entry.size != size || entry.mtime != mtime) {
+            entry = new Entry(size, mtime, origin.get());
+        }
+        this.used.put(key, entry);
+        return entry.pkg;
+    }
+
+    /**
+     * Cached package of a file.
+     */
+    private static final class Entry {
+
+        /**
+         * File size.
+         */
+        private final long size;
+
+        /**
+         * File modification time.
+         */
+        private final long mtime;
+
+        /**
+         * Package.
+         */
+        private final Jpkg pkg;
+
+        /**
+         * Ctor.
+         *
+         * @param bytes File size.
+         * @param time File modification time.
+         * @param jpkg Package.
+         */
+        Entry(final long bytes, final long time, final Jpkg jpkg) {
+            this.size = bytes;
+            this.mtime = time;
+            this.pkg = jpkg;
+        }
+    }
+}
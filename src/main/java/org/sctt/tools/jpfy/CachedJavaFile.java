@@ -0,0 +1,65 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Java file whose package is looked up in a {@link Cache} first.
+ */
+public final class CachedJavaFile implements JavaFile {
+
+    /**
+     * Source path.
+     */
+    private final Path src;
+
+    /**
+     * Cache.
+     */
+    private final Cache cache;
+
+    /**
+     * Java file to parse on cache miss.
+     */
+    private final JavaFile origin;
+
+    /**
+     * Ctor.
+     *
+     * @param source Path to a source file.
+     * @param packages Cache of packages.
+     * @param java Java file to parse on cache miss.
+     */
+    public CachedJavaFile(final Path source, final Cache packages,
+        final JavaFile java) {
+        this.src = source;
+        this.cache = packages;
+        this.origin = java;
+    }
+
+    @Override
+    public Jpkg pkg() {
+        final BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(this.src, BasicFileAttributes.class);
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to read source file", e);
+        }
+        final String key;
+        if (this.src.getFileSystem() == FileSystems.getDefault()) {
+            key = this.src.toAbsolutePath().normalize().toString();
+        } else {
+            key = this.src.toUri().toString();
+        }
+        return this.cache.pkg(
+            key,
+            attrs.size(),
+            attrs.lastModifiedTime().to(TimeUnit.NANOSECONDS),
+            this.origin::pkg
+        );
+    }
+}
@@ -0,0 +1,87 @@
+package org.sctt.tools.jpfy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * Client running jpfy on a {@link Daemon}.
+ */
+public final class Client {
+
+    /**
+     * Socket file of the daemon.
+     */
+    private final Path socket;
+
+    /**
+     * Stream for standard output of the run.
+     */
+    private final PrintStream stdout;
+
+    /**
+     * Stream for standard error of the run.
+     */
+    private final PrintStream stderr;
+
+    /**
+     * Ctor.
+     *
+     * @param path Socket file of the daemon.
+     * @param out Stream for standard output of the run.
+     * @param err Stream for standard error of the run.
+     */
+    public Client(final Path path, final PrintStream out,
+        final PrintStream err) {
+        this.socket = path;
+        this.stdout = out;
+        this.stderr = err;
+    }
+
+    /**
+     * Run jpfy on the daemon.
+     *
+     * @param args Arguments of the run.
+     * @return Exit code of the run.
+     * @throws IOException If the daemon cannot be reached.
+     */
+    public int call(final List<String> args) throws IOException {
+        try (SocketChannel channel =
+            SocketChannel.open(UnixDomainSocketAddress.of(this.socket));
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel))
+            );
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel))
+            )) {
+            out.writeUTF(Path.of("").toAbsolutePath().toString());
+            out.writeInt(args.size());
+            for (final String arg : args) {
+                out.writeUTF(arg);
+            }
+            out.flush();
+            byte type = in.readByte();
+            while (type != Daemon.EXIT) {
+                final byte[] data = new byte[in.readInt()];
+                in.readFully(data);
+                if (type == Daemon.OUT) {
+                    this.stdout.write(data);
+                } else {
+                    this.stderr.write(data);
+                    this.stderr.flush();
+                }
+                type = in.readByte();
+            }
+            this.stdout.flush();
+            return in.readInt();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Transfer which copies files channel to channel, letting the kernel move
+ * the bytes (copy_file_range or sendfile) instead of buffering them in
+ * user space. Files from another file system, such as an archive, are
+ * streamed instead. Existing files are never replaced, and a copy that
+ * fails half-way is deleted, so that it can be retried.
+ */
+public final class CopyTransfer implements Transfer {
+
+    @Override
+    public void apply(final Path source, final Path destination)
+        throws IOException {
+        final TransferEvent event = new TransferEvent();
+        event.begin();
+        if (source.getFileSystem() != destination.getFileSystem()) {
+            Files.copy(source, destination);
+            if (event.isEnabled()) {
+                event.finish(
+                    "copy", source, destination, Files.size(destination)
+                );
+            }
+            return;
+        }
+        final long size = Files.size(source);
+        CopyTransfer.copy(source, destination, size);
+        event.finish("copy", source, destination, size);
+    }
+
+    /**
+     * Copy the first bytes of a file into a new file, which is deleted
+     * unless all of them are copied.
+     *
+     * @param source File to copy.
+     * @param destination New file.
+     * @param size Number of bytes to copy.
+     * @throws IOException If copying fails or the source is shorter.
+     */
+    static void copy(final Path source, final Path destination,
+        final long size) throws IOException {
+        try (FileChannel in =
+            FileChannel.open(source, StandardOpenOption.READ)) {
+            final FileChannel out = FileChannel.open(
+                destination,
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE
+            );
+            boolean done = false;
+            try (out) {
+                long pos = 0;
+                while (pos < size) {
+                    final long sent = in.transferTo(pos, size - pos, out);
+                    if (sent <= 0) {
+                        break;
+                    }
+                    pos += sent;
+                }
+                if (pos < size) {
+                    throw new IOException(
+                        "Copied " + pos + " of " + size + " bytes of "
+                            + source
+                    );
+                }
+                done = true;
+            } finally {
+                if (!done) {
+                    Files.deleteIfExists(destination);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package org.sctt.tools.jpfy;
+
+import picocli.CommandLine;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Server running jpfy for clients connecting over a Unix domain socket.
+ *
+ * <p>The JVM stays warm between runs and packages of unchanged files are
+ * kept in a cache shared by all runs. A request is the working directory
+ * of the client and its arguments; relative paths are resolved against
+ * that directory. The response is a sequence of frames of standard output
+ * and standard error, ended by the exit code. Requests are served
+ * concurrently, each on its own virtual thread. The socket file appears
+ * only once the daemon accepts connections.
+ */
+public final class Daemon {
+
+    /**
+     * Frame of standard output.
+     */
+    static final byte OUT = 'O';
+
+    /**
+     * Frame of standard error.
+     */
+    static final byte ERR = 'E';
+
+    /**
+     * Frame with the exit code, the last one.
+     */
+    static final byte EXIT = 'X';
+
+    /**
+     * Socket file.
+     */
+    private final Path socket;
+
+    /**
+     * Cache shared by all runs.
+     */
+    private final Cache cache = new Cache(null);
+
+    /**
+     * Ctor.
+     *
+     * @param path Socket file, replaced if it exists.
+     */
+    public Daemon(final Path path) {
+        this.socket = path;
+    }
+
+    /**
+     * Serve requests until the thread is interrupted.
+     *
+     * @throws IOException If the socket cannot be bound or fails.
+     */
+    public void run() throws IOException {
+        final Path pending = this.socket.resolveSibling(
+            this.socket.getFileName() + ".tmp"
+        );
+        Files.deleteIfExists(this.socket);
+        Files.deleteIfExists(pending);
+        try (ServerSocketChannel server =
+            ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            ExecutorService pool =
+                Executors.newVirtualThreadPerTaskExecutor()) {
+            server.bind(UnixDomainSocketAddress.of(pending));
+            Files.move(pending, this.socket, StandardCopyOption.ATOMIC_MOVE);
+            while (true) {
+                final SocketChannel client = server.accept();
+                pool.execute(() -> this.serve(client));
+            }
+        } finally {
+            Files.deleteIfExists(pending);
+            Files.deleteIfExists(this.socket);
+        }
+    }
+
+    /**
+     * Serve a single request.
+     *
+     * @param channel Connection of the client.
+     */
+    private void serve(final SocketChannel channel) {
+        try (channel;
+            DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Channels.newInputStream(channel))
+            );
+            DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(Channels.newOutputStream(channel))
+            )) {
+            final Path cwd = Path.of(in.readUTF());
+            final String[] args = new String[in.readInt()];
+            for (int idx = 0; idx < args.length; ++idx) {
+                args[idx] = in.readUTF();
+            }
+            final PrintStream stdout = new PrintStream(
+                new Frames(out, Daemon.OUT), false, StandardCharsets.UTF_8
+            );
+            final PrintStream stderr = new PrintStream(
+                new Frames(out, Daemon.ERR), true, StandardCharsets.UTF_8
+            );
+            final CommandLine cli =
+                new CommandLine(new App(stdout, stderr, this.cache));
+            cli.registerConverter(Path.class, cwd::resolve);
+            cli.setOut(new PrintWriter(stdout, true, StandardCharsets.UTF_8));
+            cli.setErr(new PrintWriter(stderr, true, StandardCharsets.UTF_8));
+            final int code = cli.execute(args);
+            stdout.flush();
+            stderr.flush();
+            synchronized (out) {
+                out.writeByte(Daemon.EXIT);
+                out.writeInt(code);
+                out.flush();
+            }
+        } catch (final IOException ex) {
+            System.err.println("Warning: Could not serve request: " + ex);
+        }
+    }
+
+    /**
+     * Stream writing every write as a frame of a given type.
+     */
+    private static final class Frames extends OutputStream {
+
+        /**
+         * Stream to the client, shared by frames of all types.
+         */
+        private final DataOutputStream out;
+
+        /**
+         * Type of frames.
+         */
+        private final byte type;
+
+        /**
+         * Ctor.
+         *
+         * @param stream Stream to the client.
+         * @param kind Type of frames.
+         */
+        Frames(final DataOutputStream stream, final byte kind) {
+            this.out = stream;
+            this.type = kind;
+        }
+
+        @Override
+        public void write(final int chr) throws IOException {
+            this.write(new byte[] {(byte) chr}, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] buf, final int off, final int len)
+            throws IOException {
+            if (len > 0) {
+                synchronized (this.out) {
+                    this.out.writeByte(this.type);
+                    this.out.writeInt(len);
+                    this.out.write(buf, off, len);
+                }
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            synchronized (this.out) {
+                this.out.flush();
+            }
+        }
+    }
+}
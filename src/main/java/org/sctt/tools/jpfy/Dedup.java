@@ -0,0 +1,213 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+
+/**
+ * Finder of sources with identical content.
+ *
+ * <p>Only files of equal size are hashed, in parallel, with CRC32C. Files
+ * with equal hashes are then compared byte by byte, so a collision never
+ * makes different files duplicates. Files which cannot be read are
+ * treated as unique.
+ */
+public final class Dedup {
+
+    /**
+     * Size of buffers files are hashed through.
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * Number of threads hashing files.
+     */
+    private final int threads;
+
+    /**
+     * Maximum number of files open at once.
+     */
+    private final int limit;
+
+    /**
+     * Buffers to hash through.
+     */
+    private final Buffers buffers = new Buffers(Dedup.BUFFER);
+
+    /**
+     * Bytes of duplicates found.
+     */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Ctor.
+     *
+     * @param count Number of threads, as for {@link Workers}.
+     * @param open Maximum number of files open at once.
+     */
+    public Dedup(final int count, final int open) {
+        this.threads = count;
+        this.limit = open;
+    }
+
+    /**
+     * Find duplicates among sources of the plan.
+     *
+     * @param plan Plan with sources to compare.
+     * @return Source of every duplicate to the first source in plan order
+     *  with the same content.
+     */
+    public Map<Path, Path> apply(final Plan plan) {
+        final Map<Long, List<Path>> sizes = new ConcurrentHashMap<>();
+        try (Workers workers = new Workers(this.threads, this.limit)) {
+            plan.forEach(
+                (from, to) -> workers.submit(
+                    () -> Dedup.size(from, sizes)
+                )
+            );
+            workers.await();
+        }
+        final Map<Path, Long> hashes = new ConcurrentHashMap<>();
+        try (Workers workers = new Workers(this.threads, this.limit)) {
+            sizes.values().stream().filter(same -> same.size() > 1)
+                .flatMap(List::stream)
+                .forEach(
+                    file -> workers.submit(() -> this.hash(file, hashes))
+                );
+            workers.await();
+        }
+        final Map<Path, Path> result = new ConcurrentSkipListMap<>();
+        try (Workers workers = new Workers(this.threads, this.limit)) {
+            sizes.forEach(
+                (size, same) -> {
+                    if (same.size() > 1) {
+                        workers.submit(
+                            () -> this.confirm(size, same, hashes, result)
+                        );
+                    }
+                }
+            );
+            workers.await();
+        }
+        return result;
+    }
+
+    /**
+     * Bytes taken by duplicates found so far.
+     *
+     * @return Number of bytes.
+     */
+    public long saved() {
+        return this.bytes.sum();
+    }
+
+    /**
+     * Add a non-empty file to the group of its size.
+     *
+     * @param file File.
+     * @param sizes Files by size.
+     */
+    private static void size(final Path file,
+        final Map<Long, List<Path>> sizes) {
+        try {
+            final long size = Files.size(file);
+            if (size > 0) {
+                sizes.computeIfAbsent(
+                    size, key -> Collections.synchronizedList(new ArrayList<>())
+                ).add(file);
+            }
+        } catch (final IOException ex) {
+            return;
+        }
+    }
+
+    /**
+     * Hash the content of a file.
+     *
+     * @param file File.
+     * @param hashes Where to put the hash.
+     */
+    private void hash(final Path file, final Map<Path, Long> hashes) {
+        final ByteBuffer buf = this.buffers.take();
+        try (FileChannel channel =
+            FileChannel.open(file, StandardOpenOption.READ)) {
+            final CRC32C crc = new CRC32C();
+            while (channel.read(buf) >= 0) {
+                buf.flip();
+                crc.update(buf);
+                buf.clear();
+            }
+            hashes.put(file, crc.getValue());
+        } catch (final IOException | UnsupportedOperationException ex) {
+            return;
+        } finally {
+            this.buffers.give(buf);
+        }
+    }
+
+    /**
+     * Find duplicates among files of the same size, comparing files with
+     * equal hashes byte by byte.
+     *
+     * @param size Size of the files.
+     * @param same Files of the size.
+     * @param hashes Hashes of files.
+     * @param result Where to put duplicates.
+     */
+    private void confirm(final long size, final List<Path> same,
+        final Map<Path, Long> hashes, final Map<Path, Path> result) {
+        final Map<Long, List<Path>> originals = new TreeMap<>();
+        final List<Path> sorted = new ArrayList<>(same);
+        Collections.sort(sorted);
+        for (final Path file : sorted) {
+            final Long hash = hashes.get(file);
+            if (hash == null) {
+                continue;
+            }
+            final List<Path> candidates =
+                originals.computeIfAbsent(hash, key -> new ArrayList<>());
+            final Path original = Dedup.identical(file, candidates);
+            if (original == null) {
+                candidates.add(file);
+            } else {
+                result.put(file, original);
+                this.bytes.add(size);
+            }
+        }
+    }
+
+    /**
+     * First of candidates with the same content as the file.
+     *
+     * @param file File.
+     * @param candidates Files with the same size and hash.
+     * @return Identical file, or null if none.
+     */
+    private static Path identical(final Path file,
+        final List<Path> candidates) {
+        Path result = null;
+        for (final Path candidate : candidates) {
+            try {
+                if (Files.mismatch(candidate, file) < 0) {
+                    result = candidate;
+                    break;
+                }
+            } catch (final IOException ex) {
+                continue;
+            }
+        }
+        return result;
+    }
+}
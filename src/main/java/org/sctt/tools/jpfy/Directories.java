@@ -0,0 +1,130 @@
+package org.sctt.tools.jpfy;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index of source directories to the package directories their Java
+ * files are moved to.
+ *
+ * <p>When a directory holds Java files of different packages, the file
+ * with the smallest path wins, so the result does not depend on the order
+ * files were added in. Package directories of individual files are only
+ * kept when asked for, as that costs memory per file.
+ */
+public final class Directories {
+
+    /**
+     * Source directory to the Java file representing it.
+     */
+    private final Map<Path, Entry> dirs = new ConcurrentHashMap<>();
+
+    /**
+     * Java file to its package directory, null if not kept.
+     */
+    private final Map<Path, Path> files;
+
+    /**
+     * Ctor.
+     *
+     * @param each Whether to keep package directories of each file.
+     */
+    public Directories(final boolean each) {
+        if (each) {
+            this.files = new ConcurrentHashMap<>();
+        } else {
+            this.files = null;
+        }
+    }
+
+    /**
+     * Register a Java file.
+     *
+     * @param java Source path of the Java file.
+     * @param destination Where the Java file is moved to.
+     */
+    public void add(final Path java, final Path destination) {
+        this.dirs.merge(
+            java.getParent(),
+            new Entry(java, destination.getParent()),
+            Entry::first
+        );
+        if (this.files != null) {
+            this.files.put(java, destination.getParent());
+        }
+    }
+
+    /**
+     * Package directory of a Java file.
+     *
+     * @param java Source path of the Java file.
+     * @return Package directory, or null if the file is unknown or files
+     *  are not kept.
+     */
+    public Path file(final Path java) {
+        Path result = null;
+        if (this.files != null) {
+            result = this.files.get(java);
+        }
+        return result;
+    }
+
+    /**
+     * Package directory for files of a source directory.
+     *
+     * @param dir Source directory.
+     * @return Package directory, or null if the source directory has no
+     *  Java files.
+     */
+    public Path destination(final Path dir) {
+        final Entry entry = this.dirs.get(dir);
+        Path result = null;
+        if (entry != null) {
+            result = entry.target;
+        }
+        return result;
+    }
+
+    /**
+     * Java file and its package directory.
+     */
+    private static final class Entry {
+
+        /**
+         * Java file.
+         */
+        private final Path file;
+
+        /**
+         * Package directory.
+         */
+        private final Path target;
+
+        /**
+         * Ctor.
+         *
+         * @param java Java file.
+         * @param dir Package directory.
+         */
+        Entry(final Path java, final Path dir) {
+            this.file = java;
+            this.target = dir;
+        }
+
+        /**
+         * Entry of the smaller of two files.
+         *
+         * @param left First entry.
+         * @param right Second entry.
+         * @return Winning entry.
+         */
+        static Entry first(final Entry left, final Entry right) {
+            Entry result = right;
+            if (left.file.compareTo(right.file) <= 0) {
+                result = left;
+            }
+            return result;
+        }
+    }
+}
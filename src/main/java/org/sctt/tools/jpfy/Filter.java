@@ -0,0 +1,332 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Which files of a source tree are walked, decided while listing.
+ *
+ * <p>Patterns are globs compiled once. As in {@code .gitignore}, a pattern
+ * without a slash matches the name of a file or directory at any depth,
+ * and one with a slash matches its path relative to the source root (or
+ * to the folder of the {@code .gitignore}). Excluded directories are not
+ * listed at all. Includes apply to files only, so that every directory
+ * may still be looked into. With {@code .gitignore} support, each
+ * directory's {@code .gitignore} adds rules for it and below, the last
+ * matching rule winning, and {@code .git} folders are skipped.
+ */
+public final class Filter {
+
+    /**
+     * Filter letting everything through.
+     */
+    public static final Filter ALL = new Filter(List.of(), List.of(), false);
+
+    /**
+     * Name of ignore files.
+     */
+    private static final String GITIGNORE = ".gitignore";
+
+    /**
+     * Patterns of files to walk, empty for all.
+     */
+    private final List<Rule> includes;
+
+    /**
+     * Rules of files and directories to skip.
+     */
+    private final List<Rule> excludes;
+
+    /**
+     * Whether to read {@code .gitignore} files.
+     */
+    private final boolean gitignore;
+
+    /**
+     * Ctor.
+     *
+     * @param include Globs of files to walk, empty for all.
+     * @param exclude Globs of files and directories to skip.
+     * @param git Whether to honor {@code .gitignore} files.
+     */
+    public Filter(final List<String> include, final List<String> exclude,
+        final boolean git) {
+        this.includes = new ArrayList<>(include.size());
+        for (final String glob : include) {
+            this.includes.add(Rule.of(glob));
+        }
+        this.excludes = new ArrayList<>(exclude.size());
+        for (final String glob : exclude) {
+            this.excludes.add(Rule.of(glob));
+        }
+        this.gitignore = git;
+    }
+
+    /**
+     * Rules for the root of a tree.
+     *
+     * @param root Source root.
+     * @return Rules, or null if nothing is ever skipped.
+     */
+    public Scope top(final Path root) {
+        Scope result = null;
+        if (this.gitignore || !this.includes.isEmpty()
+            || !this.excludes.isEmpty()) {
+            result = new Scope(null, root, this.excludes);
+        }
+        return result;
+    }
+
+    /**
+     * Rules for the entries of a directory.
+     *
+     * @param outer Rules of the directory.
+     * @param dir Directory about to be listed.
+     * @return Rules, with those of its {@code .gitignore} if any.
+     * @throws IOException If the ignore file cannot be read.
+     */
+    public Scope enter(final Scope outer, final Path dir) throws IOException {
+        Scope result = outer;
+        if (this.gitignore && outer != null) {
+            final Path file = dir.resolve(Filter.GITIGNORE);
+            if (Files.isRegularFile(file)) {
+                final List<Rule> rules = new ArrayList<>();
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8)
+                    .lines().map(Rule::parse).filter(Objects::nonNull)
+                    .forEach(rules::add);
+                result = new Scope(outer, dir, rules);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Whether a subdirectory is listed.
+     *
+     * @param scope Rules of its parent, null to allow everything.
+     * @param dir Subdirectory.
+     * @return True if it is walked.
+     */
+    public boolean walks(final Scope scope, final Path dir) {
+        boolean result = true;
+        if (scope != null) {
+            result = !(this.gitignore
+                && ".git".equals(String.valueOf(dir.getFileName())))
+                && !scope.ignores(dir, true);
+        }
+        return result;
+    }
+
+    /**
+     * Whether a file is reported.
+     *
+     * @param scope Rules of its directory, null to allow everything.
+     * @param file File.
+     * @return True if it is reported.
+     */
+    public boolean accepts(final Scope scope, final Path file) {
+        boolean result = true;
+        if (scope != null) {
+            result = !scope.ignores(file, false);
+            if (result && !this.includes.isEmpty()) {
+                result = false;
+                for (final Rule rule : this.includes) {
+                    if (rule.matches(scope.root, file)) {
+                        result = true;
+                        break;
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Rules in effect for a directory: those of the folders above it,
+     * then its own.
+     */
+    public static final class Scope {
+
+        /**
+         * Rules of the folders above, null at the root.
+         */
+        private final Scope outer;
+
+        /**
+         * Folder rule paths are relative to.
+         */
+        private final Path base;
+
+        /**
+         * Own rules, in order.
+         */
+        private final List<Rule> rules;
+
+        /**
+         * Source root of the tree.
+         */
+        private final Path root;
+
+        /**
+         * Ctor.
+         *
+         * @param parent Rules of the folders above, null at the root.
+         * @param dir Folder rule paths are relative to.
+         * @param own Own rules, in order.
+         */
+        Scope(final Scope parent, final Path dir, final List<Rule> own) {
+            this.outer = parent;
+            this.base = dir;
+            this.rules = own;
+            if (parent == null) {
+                this.root = dir;
+            } else {
+                this.root = parent.root;
+            }
+        }
+
+        /**
+         * Whether the last matching rule skips an entry.
+         *
+         * @param entry File or directory.
+         * @param dir Whether it is a directory.
+         * @return True if it is skipped.
+         */
+        boolean ignores(final Path entry, final boolean dir) {
+            boolean result = false;
+            if (this.outer != null) {
+                result = this.outer.ignores(entry, dir);
+            }
+            for (final Rule rule : this.rules) {
+                if ((dir || !rule.dirs) && rule.matches(this.base, entry)) {
+                    result = !rule.negated;
+                }
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Single compiled pattern.
+     */
+    private static final class Rule {
+
+        /**
+         * Prefix matching any folder, the folder of the rule included.
+         */
+        private static final String ANY = "**/";
+
+        /**
+         * Matcher of the glob.
+         */
+        private final PathMatcher matcher;
+
+        /**
+         * Whether it matches paths relative to the base, not names.
+         */
+        private final boolean anchored;
+
+        /**
+         * Whether it matches directories only.
+         */
+        private final boolean dirs;
+
+        /**
+         * Whether it lets matching entries through again.
+         */
+        private final boolean negated;
+
+        /**
+         * Ctor.
+         *
+         * @param glob Glob without markers.
+         * @param path Whether it matches relative paths.
+         * @param folders Whether it matches directories only.
+         * @param negation Whether it lets entries through.
+         */
+        Rule(final String glob, final boolean path, final boolean folders,
+            final boolean negation) {
+            this.matcher =
+                FileSystems.getDefault().getPathMatcher("glob:" + glob);
+            this.anchored = path;
+            this.dirs = folders;
+            this.negated = negation;
+        }
+
+        /**
+         * Rule of a command line glob.
+         *
+         * @param glob Glob.
+         * @return Rule.
+         */
+        static Rule of(final String glob) {
+            final Rule rule = Rule.parse(glob);
+            if (rule == null) {
+                throw new IllegalArgumentException("Empty glob: " + glob);
+            }
+            return rule;
+        }
+
+        /**
+         * Rule of a {@code .gitignore} line.
+         *
+         * @param line Line.
+         * @return Rule, or null for blank lines and comments.
+         */
+        static Rule parse(final String line) {
+            String glob = line.strip();
+            if (glob.isEmpty() || glob.startsWith("#")) {
+                return null;
+            }
+            boolean negation = false;
+            if (glob.startsWith("!")) {
+                negation = true;
+                glob = glob.substring(1);
+            } else if (glob.startsWith("\\")) {
+                glob = glob.substring(1);
+            }
+            boolean folders = false;
+            if (glob.endsWith("/")) {
+                folders = true;
+                glob = glob.substring(0, glob.length() - 1);
+            }
+            if (glob.startsWith(Rule.ANY)
+                && glob.indexOf('/', Rule.ANY.length()) < 0) {
+                glob = glob.substring(Rule.ANY.length());
+            }
+            boolean path = glob.indexOf('/') >= 0;
+            if (glob.startsWith("/")) {
+                glob = glob.substring(1);
+                path = true;
+            }
+            if (glob.isEmpty()) {
+                return null;
+            }
+            return new Rule(glob, path, folders, negation);
+        }
+
+        /**
+         * Whether the rule matches an entry.
+         *
+         * @param base Folder the rule is relative to.
+         * @param entry File or directory under it.
+         * @return True on match.
+         */
+        boolean matches(final Path base, final Path entry) {
+            final Path subject;
+            if (this.anchored) {
+                subject = base.relativize(entry);
+            } else {
+                subject = entry.getFileName();
+            }
+            return this.matcher.matches(subject);
+        }
+    }
+}
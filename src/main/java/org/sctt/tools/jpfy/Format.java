@@ -0,0 +1,132 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Format of a printed move.
+ */
+public enum Format {
+
+    /**
+     * Source and destination separated by '='.
+     */
+    TEXT {
+        @Override
+        public void write(final Writer out, final Path source,
+            final Path destination) throws IOException {
+            out.write(source.toString());
+            out.write('=');
+            out.write(destination.toString());
+            out.write('\n');
+        }
+    },
+
+    /**
+     * Source and destination separated by a tab, with tabs, line breaks
+     * and backslashes in paths escaped by a backslash.
+     */
+    TSV {
+        @Override
+        public void write(final Writer out, final Path source,
+            final Path destination) throws IOException {
+            Format.escape(out, source.toString());
+            out.write('\t');
+            Format.escape(out, destination.toString());
+            out.write('\n');
+        }
+    },
+
+    /**
+     * JSON object per line.
+     */
+    JSONL {
+        @Override
+        public void write(final Writer out, final Path source,
+            final Path destination) throws IOException {
+            out.write("{\"source\":");
+            Format.quote(out, source.toString());
+            out.write(",\"destination\":");
+            Format.quote(out, destination.toString());
+            out.write("}\n");
+        }
+    };
+
+    /**
+     * Code points below which characters are escaped in JSON.
+     */
+    private static final char CONTROL = 0x20;
+
+    /**
+     * Write a move.
+     *
+     * @param out Where to write.
+     * @param source File to move.
+     * @param destination Where the file should end up.
+     * @throws IOException If writing fails.
+     */
+    public abstract void write(Writer out, Path source, Path destination)
+        throws IOException;
+
+    /**
+     * Format by its name, in any case.
+     *
+     * @param name Name of the format.
+     * @return Format.
+     * @throws IllegalArgumentException If there is no such format.
+     */
+    public static Format of(final String name) {
+        return Format.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+
+    /**
+     * Write a TSV field.
+     *
+     * @param out Where to write.
+     * @param text Text to escape.
+     * @throws IOException If writing fails.
+     */
+    private static void escape(final Writer out, final String text)
+        throws IOException {
+        for (int idx = 0; idx < text.length(); ++idx) {
+            final char chr = text.charAt(idx);
+            if (chr == '\t') {
+                out.write("\\t");
+            } else if (chr == '\n') {
+                out.write("\\n");
+            } else if (chr == '\r') {
+                out.write("\\r");
+            } else if (chr == '\\') {
+                out.write("\\\\");
+            } else {
+                out.write(chr);
+            }
+        }
+    }
+
+    /**
+     * Write a JSON string literal.
+     *
+     * @param out Where to write.
+     * @param text Text to quote.
+     * @throws IOException If writing fails.
+     */
+    private static void quote(final Writer out, final String text)
+        throws IOException {
+        out.write('"');
+        for (int idx = 0; idx < text.length(); ++idx) {
+            final char chr = text.charAt(idx);
+            if (chr == '"' || chr == '\\') {
+                out.write('\\');
+                out.write(chr);
+            } else if (chr < Format.CONTROL) {
+                out.write(String.format("\\u%04x", (int) chr));
+            } else {
+                out.write(chr);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,339 @@
+package org.sctt.tools.jpfy;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Write-ahead journal of moves.
+ *
+ * <p>All planned moves are written and synced before the first file is
+ * touched. Completed moves are appended as they happen and synced in
+ * batches, so a crash may lose the last few records: when replaying,
+ * moves without a record are checked against the file system instead.
+ * Directories the moves need and which do not exist yet are recorded
+ * with the plan, so that a rollback can remove them again.
+ */
+public final class Journal implements Closeable {
+
+    /**
+     * Marker at the start of the journal.
+     */
+    private static final int MAGIC = 0x4A504A4E;
+
+    /**
+     * Record of a planned move.
+     */
+    private static final byte PLANNED = 'P';
+
+    /**
+     * Record of a completed move.
+     */
+    private static final byte DONE = 'D';
+
+    /**
+     * Record of a move rolled back.
+     */
+    private static final byte UNDONE = 'U';
+
+    /**
+     * Record of a directory created for the moves.
+     */
+    private static final byte CREATED = 'C';
+
+    /**
+     * Size of pending bytes which triggers a write.
+     */
+    private static final int CHUNK = 1 << 16;
+
+    /**
+     * Journal file.
+     */
+    private final Path file;
+
+    /**
+     * Number of completion records per sync.
+     */
+    private final int batch;
+
+    /**
+     * Bytes not written to the file yet.
+     */
+    private final ByteArrayOutputStream pending = new ByteArrayOutputStream();
+
+    /**
+     * Encoder of records into pending bytes.
+     */
+    private final DataOutputStream data = new DataOutputStream(this.pending);
+
+    /**
+     * Channel to the file, null until the first write.
+     */
+    private FileChannel channel;
+
+    /**
+     * Number of completion records since the last sync.
+     */
+    private int unsynced;
+
+    /**
+     * Ctor.
+     *
+     * @param path Journal file.
+     * @param size Number of completion records per sync.
+     */
+    public Journal(final Path path, final int size) {
+        this.file = path;
+        this.batch = size;
+    }
+
+    /**
+     * Start a new journal with all moves of the plan, and sync it.
+     *
+     * @param plan Moves about to be done.
+     * @throws IOException If writing fails.
+     */
+    public synchronized void begin(final Plan plan) throws IOException {
+        this.channel = FileChannel.open(
+            this.file,
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        );
+        this.data.writeInt(Journal.MAGIC);
+        final Set<Path> dirs = new HashSet<>();
+        try {
+            plan.forEach(
+                (from, to) -> {
+                    try {
+                        this.record(Journal.PLANNED, from);
+                        this.data.writeUTF(to.toAbsolutePath().toString());
+                        Path dir = to.toAbsolutePath().getParent();
+                        while (dir != null && !Files.exists(dir)
+                            && dirs.add(dir)) {
+                            this.record(Journal.CREATED, dir);
+                            dir = dir.getParent();
+                        }
+                        this.flush(false);
+                    } catch (final IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                }
+            );
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        this.flush(true);
+    }
+
+    /**
+     * Transfer recording every completed move.
+     *
+     * @param origin Transfer doing the moves.
+     * @return Recording transfer.
+     */
+    public Transfer recording(final Transfer origin) {
+        return (from, to) -> {
+            origin.apply(from, to);
+            this.mark(Journal.DONE, from);
+        };
+    }
+
+    /**
+     * Transfer recording every move rolled back. Moves of the rollback
+     * go from planned destination to planned source.
+     *
+     * @param origin Transfer doing the moves.
+     * @return Recording transfer.
+     */
+    public Transfer undoing(final Transfer origin) {
+        return (from, to) -> {
+            origin.apply(from, to);
+            this.mark(Journal.UNDONE, to);
+        };
+    }
+
+    /**
+     * Planned moves which are not complete yet.
+     *
+     * @return Plan to resume.
+     * @throws IOException If reading fails.
+     */
+    public Plan pending() throws IOException {
+        final Map<Path, Path> planned = new LinkedHashMap<>();
+        final Set<Path> done = new HashSet<>();
+        this.read(planned, done, new HashSet<>());
+        final Plan plan = new Plan();
+        planned.forEach(
+            (from, to) -> {
+                if (!done.contains(from) && Files.exists(from)) {
+                    plan.put(from, to);
+                }
+            }
+        );
+        return plan;
+    }
+
+    /**
+     * Completed moves, reversed.
+     *
+     * @return Plan to roll back.
+     * @throws IOException If reading fails.
+     */
+    public Plan completed() throws IOException {
+        final Map<Path, Path> planned = new LinkedHashMap<>();
+        final Set<Path> done = new HashSet<>();
+        this.read(planned, done, new HashSet<>());
+        final Plan plan = new Plan();
+        planned.forEach(
+            (from, to) -> {
+                if (done.contains(from)
+                    || !Files.exists(from) && Files.exists(to)) {
+                    plan.put(to, from);
+                }
+            }
+        );
+        return plan;
+    }
+
+    /**
+     * Delete directories created for the moves which are empty, deepest
+     * first, once the moves are rolled back.
+     *
+     * @throws IOException If reading the journal or deleting fails.
+     */
+    public void prune() throws IOException {
+        final Set<Path> dirs = new TreeSet<>(Comparator.reverseOrder());
+        this.read(new LinkedHashMap<>(), new HashSet<>(), dirs);
+        for (final Path dir : dirs) {
+            if (Files.isDirectory(dir) && Journal.empty(dir)) {
+                Files.delete(dir);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.channel != null) {
+            this.flush(true);
+            this.channel.close();
+            this.channel = null;
+        }
+    }
+
+    /**
+     * Append a completion record, syncing every batch.
+     *
+     * @param type Type of record.
+     * @param path Planned source of the move.
+     * @throws IOException If writing fails.
+     */
+    private synchronized void mark(final byte type, final Path path)
+        throws IOException {
+        if (this.channel == null) {
+            this.channel = FileChannel.open(
+                this.file, StandardOpenOption.WRITE, StandardOpenOption.APPEND
+            );
+        }
+        this.record(type, path);
+        this.unsynced += 1;
+        this.flush(this.unsynced >= this.batch);
+    }
+
+    /**
+     * Encode a record with a path.
+     *
+     * @param type Type of record.
+     * @param path Path of the record.
+     * @throws IOException If encoding fails.
+     */
+    private void record(final byte type, final Path path) throws IOException {
+        this.data.writeByte(type);
+        this.data.writeUTF(path.toAbsolutePath().toString());
+    }
+
+    /**
+     * Write pending bytes when there are enough of them or sync is due.
+     *
+     * @param sync Whether to write and sync the file regardless of size.
+     * @throws IOException If writing fails.
+     */
+    private void flush(final boolean sync) throws IOException {
+        if (sync || this.pending.size() >= Journal.CHUNK) {
+            final ByteBuffer buf = ByteBuffer.wrap(this.pending.toByteArray());
+            while (buf.hasRemaining()) {
+                this.channel.write(buf);
+            }
+            this.pending.reset();
+        }
+        if (sync) {
+            this.channel.force(false);
+            this.unsynced = 0;
+        }
+    }
+
+    /**
+     * Read the journal. A torn record at the end is ignored.
+     *
+     * @param planned Where to put planned moves.
+     * @param done Where to put sources of moves which are complete.
+     * @param dirs Where to put directories created for the moves.
+     * @throws IOException If reading fails or file is not a journal.
+     */
+    private void read(final Map<Path, Path> planned, final Set<Path> done,
+        final Set<Path> dirs) throws IOException {
+        try (DataInputStream in = new DataInputStream(
+            new BufferedInputStream(Files.newInputStream(this.file))
+        )) {
+            if (in.readInt() != Journal.MAGIC) {
+                throw new IOException("Not a journal: " + this.file);
+            }
+            while (true) {
+                final byte type = in.readByte();
+                final Path path = Path.of(in.readUTF());
+                if (type == Journal.PLANNED) {
+                    planned.put(path, Path.of(in.readUTF()));
+                } else if (type == Journal.DONE) {
+                    done.add(path);
+                } else if (type == Journal.UNDONE) {
+                    done.remove(path);
+                } else if (type == Journal.CREATED) {
+                    dirs.add(path);
+                } else {
+                    throw new IOException("Corrupted journal: " + this.file);
+                }
+            }
+        } catch (final EOFException ex) {
+            return;
+        }
+    }
+
+    /**
+     * Whether a directory has no entries.
+     *
+     * @param dir Directory.
+     * @return True if it is empty.
+     * @throws IOException If listing fails.
+     */
+    private static boolean empty(final Path dir) throws IOException {
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir)) {
+            return !entries.iterator().hasNext();
+        }
+    }
+}
@@ -13,4 +13,17 @@ public interface Jpkg {
      * @return Path object.
      */
     Path asPath();
+
+    /**
+     * Dot-separated package name.
+     *
+     * <p>By default it is derived from {@link #asPath()}.
+     *
+     * @return Name, empty for the default package.
+     */
+    default String name() {
+        final Path path = this.asPath();
+        return path.toString()
+            .replace(path.getFileSystem().getSeparator(), ".");
+    }
 }
@@ -26,4 +26,9 @@ public final class JpkgImpl implements Jpkg {
     public Path asPath() {
         return Paths.get(pkgName.replace('.', '/'));
     }
+
+    @Override
+    public String name() {
+        return this.pkgName;
+    }
 }
@@ -0,0 +1,55 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+/**
+ * Transfer which hard links the destination to an existing copy of the
+ * same content, falling back to another transfer when that is not
+ * possible, e.g. across devices or when the copy failed.
+ */
+public final class LinkTransfer implements Transfer {
+
+    /**
+     * Source to existing file with the same content.
+     */
+    private final Map<Path, Path> targets;
+
+    /**
+     * Transfer to fall back to.
+     */
+    private final Transfer fallback;
+
+    /**
+     * Ctor.
+     *
+     * @param existing Source to existing file with the same content.
+     * @param origin Transfer to fall back to.
+     */
+    public LinkTransfer(final Map<Path, Path> existing,
+        final Transfer origin) {
+        this.targets = existing;
+        this.fallback = origin;
+    }
+
+    @Override
+    public void apply(final Path source, final Path destination)
+        throws IOException {
+        final Path target = this.targets.get(source);
+        boolean linked = false;
+        if (target != null
+            && target.getFileSystem() == destination.getFileSystem()) {
+            try {
+                Files.createLink(destination, target);
+                linked = true;
+            } catch (final IOException | UnsupportedOperationException ex) {
+                linked = false;
+            }
+        }
+        if (!linked) {
+            this.fallback.apply(source, destination);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Transfer which moves files, atomically when both paths are on the same
+ * file system. Existing files are never replaced.
+ */
+public final class MoveTransfer implements Transfer {
+
+    @Override
+    public void apply(final Path source, final Path destination)
+        throws IOException {
+        if (Files.exists(destination, LinkOption.NOFOLLOW_LINKS)) {
+            throw new FileAlreadyExistsException(destination.toString());
+        }
+        final TransferEvent event = new TransferEvent();
+        long size = 0;
+        if (event.isEnabled()) {
+            size = Files.size(source);
+        }
+        event.begin();
+        try {
+            Files.move(source, destination, StandardCopyOption.ATOMIC_MOVE);
+        } catch (final AtomicMoveNotSupportedException ex) {
+            Files.move(source, destination);
+        }
+        event.finish("move", source, destination, size);
+    }
+}
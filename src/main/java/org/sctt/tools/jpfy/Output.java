@@ -0,0 +1,81 @@
+package org.sctt.tools.jpfy;
+
+import java.io.BufferedWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sink printing moves through a large buffer, in a given format.
+ *
+ * <p>The buffer is only flushed when full or when asked to, never per
+ * line. The underlying stream is not closed.
+ */
+public final class Output implements Sink, Flushable {
+
+    /**
+     * Size of the buffer in chars.
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * Buffered writer.
+     */
+    private final Writer writer;
+
+    /**
+     * Format of moves.
+     */
+    private final Format format;
+
+    /**
+     * Number of moves printed.
+     */
+    private final AtomicLong count = new AtomicLong();
+
+    /**
+     * Ctor.
+     *
+     * @param out Stream to print to.
+     * @param fmt Format of moves.
+     */
+    public Output(final PrintStream out, final Format fmt) {
+        this.writer = new BufferedWriter(
+            new OutputStreamWriter(out, out.charset()), Output.BUFFER
+        );
+        this.format = fmt;
+    }
+
+    @Override
+    public void put(final Path source, final Path destination) {
+        synchronized (this.writer) {
+            try {
+                this.format.write(this.writer, source, destination);
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+        this.count.incrementAndGet();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        synchronized (this.writer) {
+            this.writer.flush();
+        }
+    }
+
+    /**
+     * Number of moves printed so far.
+     *
+     * @return Count of moves.
+     */
+    public long size() {
+        return this.count.get();
+    }
+}
@@ -0,0 +1,146 @@
+package org.sctt.tools.jpfy;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of interned packages, as a trie of their name segments.
+ *
+ * <p>Each distinct package is represented by a single object holding its
+ * name, its relative path and its directory under the source root, all
+ * computed once. Packages sharing a prefix share the nodes of the prefix,
+ * so memory is proportional to the number of packages rather than the
+ * number of files.
+ */
+public final class Packages {
+
+    /**
+     * Node of the default package.
+     */
+    private final Node top;
+
+    /**
+     * Packages looked up so far by full name, to skip walking the trie.
+     */
+    private final Map<String, Node> names = new ConcurrentHashMap<>();
+
+    /**
+     * Ctor.
+     *
+     * @param root Source root package directories are under.
+     */
+    public Packages(final Path root) {
+        this.top = new Node("", Paths.get(""), root);
+    }
+
+    /**
+     * Interned package of a name.
+     *
+     * @param name Dot-separated package name, empty for default package.
+     * @return Package, the same object for the same name.
+     */
+    public Jpkg of(final String name) {
+        final Node known = this.names.get(name);
+        if (known != null) {
+            return known;
+        }
+        Node node = this.top;
+        int start = 0;
+        while (start < name.length()) {
+            int end = name.indexOf('.', start);
+            if (end < 0) {
+                end = name.length();
+            }
+            node = node.child(name, end, name.substring(start, end));
+            start = end + 1;
+        }
+        this.names.put(name, node);
+        return node;
+    }
+
+    /**
+     * Directory of a package under the source root.
+     *
+     * @param pkg Package.
+     * @return Directory, the same object for the same package.
+     */
+    public Path dir(final Jpkg pkg) {
+        final Node node;
+        if (pkg instanceof Node) {
+            node = (Node) pkg;
+        } else {
+            node = (Node) this.of(pkg.name());
+        }
+        return node.dir;
+    }
+
+    /**
+     * Package in the trie.
+     */
+    private static final class Node implements Jpkg {
+
+        /**
+         * Dot-separated package name.
+         */
+        private final String name;
+
+        /**
+         * Package as relative path.
+         */
+        private final Path path;
+
+        /**
+         * Package directory under the source root.
+         */
+        private final Path dir;
+
+        /**
+         * Subpackages by last segment.
+         */
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+
+        /**
+         * Ctor.
+         *
+         * @param pkg Dot-separated package name.
+         * @param rel Package as relative path.
+         * @param abs Package directory under the source root.
+         */
+        Node(final String pkg, final Path rel, final Path abs) {
+            this.name = pkg;
+            this.path = rel;
+            this.dir = abs;
+        }
+
+        @Override
+        public Path asPath() {
+            return this.path;
+        }
+
+        @Override
+        public String name() {
+            return this.name;
+        }
+
+        /**
+         * Interned subpackage.
+         *
+         * @param full Full name the subpackage is a prefix of.
+         * @param end End of the subpackage in the full name.
+         * @param segment Last segment of the subpackage.
+         * @return Subpackage.
+         */
+        Node child(final String full, final int end, final String segment) {
+            return this.children.computeIfAbsent(
+                segment,
+                seg -> new Node(
+                    full.substring(0, end),
+                    this.path.resolve(seg),
+                    this.dir.resolve(seg)
+                )
+            );
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package org.sctt.tools.jpfy;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.nio.file.Path;
+
+/**
+ * Flight recorder event of finding the package of a Java file.
+ */
+@Name("org.sctt.jpfy.Parse")
+@Label("Parse")
+@Category("jpfy")
+@Description("Package extracted from a Java file")
+public final class ParseEvent extends Event {
+
+    /**
+     * Java file.
+     */
+    @Label("Path")
+    private String path;
+
+    /**
+     * Bytes read.
+     */
+    @Label("Bytes Read")
+    @DataAmount
+    private long bytes;
+
+    /**
+     * Package found.
+     */
+    @Label("Package")
+    private String pkg;
+
+    /**
+     * End the event and commit it if recorded.
+     *
+     * @param file Java file.
+     * @param read Bytes read.
+     * @param name Package found.
+     */
+    public void finish(final Path file, final long read, final String name) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.path = file.toString();
+            this.bytes = read;
+            this.pkg = name;
+            this.commit();
+        }
+    }
+}
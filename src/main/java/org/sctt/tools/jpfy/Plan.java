@@ -0,0 +1,117 @@
+package org.sctt.tools.jpfy;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Thread-safe plan of moves, ordered by source path.
+ *
+ * <p>Files keep their names when moved, so only the destination directory
+ * is stored per file, and equal directories are stored once. Destinations
+ * are built again when asked for. Moves which rename a file are stored in
+ * full.
+ */
+public final class Plan implements Sink {
+
+    /**
+     * Source to destination directory, or to full destination if renamed.
+     */
+    private final Map<Path, Path> moves = new ConcurrentSkipListMap<>();
+
+    /**
+     * Interned destination directories.
+     */
+    private final Map<Path, Path> dirs = new ConcurrentHashMap<>();
+
+    /**
+     * Sources of moves which rename the file.
+     */
+    private final Set<Path> renamed = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void put(final Path source, final Path destination) {
+        final Path dir = destination.getParent();
+        if (dir != null && Plan.name(destination).equals(Plan.name(source))) {
+            this.renamed.remove(source);
+            this.moves.put(source, this.dirs.computeIfAbsent(dir, key -> key));
+        } else {
+            this.renamed.add(source);
+            this.moves.put(source, destination);
+        }
+    }
+
+    /**
+     * Planned destination of a file.
+     *
+     * @param source File to move.
+     * @return Destination, or null if the file is not in the plan.
+     */
+    public Path get(final Path source) {
+        final Path stored = this.moves.get(source);
+        Path result = null;
+        if (stored != null) {
+            result = this.destination(source, stored);
+        }
+        return result;
+    }
+
+    /**
+     * Whether there is nothing to move.
+     *
+     * @return True if plan is empty.
+     */
+    public boolean isEmpty() {
+        return this.moves.isEmpty();
+    }
+
+    /**
+     * Number of planned moves.
+     *
+     * @return Count of entries.
+     */
+    public int size() {
+        return this.moves.size();
+    }
+
+    /**
+     * Visit every move in source path order.
+     *
+     * @param action Consumer of source and destination.
+     */
+    public void forEach(final BiConsumer<Path, Path> action) {
+        this.moves.forEach(
+            (source, stored) -> action.accept(
+                source, this.destination(source, stored)
+            )
+        );
+    }
+
+    /**
+     * Destination of a move from what is stored for it.
+     *
+     * @param source File to move.
+     * @param stored Destination directory, or destination if renamed.
+     * @return Destination.
+     */
+    private Path destination(final Path source, final Path stored) {
+        Path result = stored;
+        if (!this.renamed.contains(source)) {
+            result = stored.resolve(Plan.name(source));
+        }
+        return result;
+    }
+
+    /**
+     * File name of a path, comparable across file systems.
+     *
+     * @param path Path.
+     * @return File name.
+     */
+    private static String name(final Path path) {
+        return String.valueOf(path.getFileName());
+    }
+}
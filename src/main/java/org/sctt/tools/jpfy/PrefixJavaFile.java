@@ -0,0 +1,456 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Java file whose package is scanned from the first bytes of the file.
+ *
+ * <p>Only a prefix of the file is read into a pooled buffer, and the
+ * package declaration is found by a hand-written scanner which skips
+ * comments and annotations. No per-line strings or regular expressions
+ * are involved, and bytes which are not valid UTF-8 are tolerated. The
+ * prefix grows only when the header does not fit into it, and at most to
+ * {@link #MAX_PREFIX} bytes: a header that does not end by then, such as
+ * an unterminated comment, is taken as the default package.
+ */
+public final class PrefixJavaFile implements JavaFile {
+
+    /**
+     * Scan ran out of bytes before reaching a decision.
+     */
+    private static final int INCOMPLETE = -1;
+
+    /**
+     * Package declaration is malformed.
+     */
+    private static final int MALFORMED = -2;
+
+    /**
+     * Largest prefix read in search of the package declaration.
+     */
+    private static final int MAX_PREFIX = 1 << 20;
+
+    /**
+     * Keyword starting the declaration.
+     */
+    private static final byte[] KEYWORD =
+        "package".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * UTF-8 byte order mark.
+     */
+    private static final byte[] BOM = {(byte) 0xEF, (byte) 0xBB, (byte) 0xBF};
+
+    /**
+     * Source path.
+     */
+    private final Path src;
+
+    /**
+     * Pool of buffers to read the prefix into.
+     */
+    private final Buffers buffers;
+
+    /**
+     * Counter of bytes read, null if not counted.
+     */
+    private final LongAdder read;
+
+    /**
+     * Stream for warnings.
+     */
+    private final PrintStream warnings;
+
+    /**
+     * Ctor.
+     *
+     * @param source Path to a source file.
+     * @param pool Pool of buffers, the capacity of which is the prefix size.
+     */
+    public PrefixJavaFile(final Path source, final Buffers pool) {
+        this(source, pool, null);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source Path to a source file.
+     * @param pool Pool of buffers, the capacity of which is the prefix size.
+     * @param bytes Counter to add bytes read to, or null.
+     */
+    public PrefixJavaFile(final Path source, final Buffers pool,
+        final LongAdder bytes) {
+        this(source, pool, bytes, System.err);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param source Path to a source file.
+     * @param pool Pool of buffers, the capacity of which is the prefix size.
+     * @param bytes Counter to add bytes read to, or null.
+     * @param stream Stream for warnings.
+     */
+    public PrefixJavaFile(final Path source, final Buffers pool,
+        final LongAdder bytes, final PrintStream stream) {
+        this.src = source;
+        this.buffers = pool;
+        this.read = bytes;
+        this.warnings = stream;
+    }
+
+    @Override
+    public Jpkg pkg() {
+        final ParseEvent event = new ParseEvent();
+        event.begin();
+        final ByteBuffer pooled = this.buffers.take();
+        try (SeekableByteChannel channel = Files.newByteChannel(this.src)) {
+            ByteBuffer buf = pooled;
+            boolean eof = PrefixJavaFile.fill(channel, buf);
+            String name = PrefixJavaFile.scan(buf, eof);
+            while (name == null
+                && buf.capacity() < PrefixJavaFile.MAX_PREFIX) {
+                final ByteBuffer larger = ByteBuffer.allocate(
+                    Math.min(buf.capacity() * 2, PrefixJavaFile.MAX_PREFIX)
+                );
+                larger.put(buf);
+                eof = PrefixJavaFile.fill(channel, larger);
+                buf = larger;
+                name = PrefixJavaFile.scan(buf, eof);
+            }
+            if (name == null) {
+                this.warnings.println(
+                    "Warning: No end of header in the first "
+                        + buf.limit() + " bytes of " + this.src
+                        + ", using the default package"
+                );
+                name = "";
+            }
+            if (this.read != null) {
+                this.read.add(buf.limit());
+            }
+            event.finish(this.src, buf.limit(), name);
+            return new JpkgImpl(name);
+        } catch (final IOException e) {
+            throw new RuntimeException("Unable to read source file", e);
+        } finally {
+            this.buffers.give(pooled);
+        }
+    }
+
+    /**
+     * Read from channel until the buffer is full or the channel is over,
+     * then flip the buffer.
+     *
+     * @param channel Channel to read.
+     * @param buf Buffer to read into.
+     * @return True if the end of the channel was reached.
+     * @throws IOException If reading fails.
+     */
+    private static boolean fill(final ReadableByteChannel channel,
+        final ByteBuffer buf) throws IOException {
+        boolean eof = false;
+        while (buf.hasRemaining() && !eof) {
+            eof = channel.read(buf) < 0;
+        }
+        buf.flip();
+        return eof;
+    }
+
+    /**
+     * Find declared package in the buffer.
+     *
+     * @param buf Bytes from the start of the file.
+     * @param eof Whether the buffer holds the whole file.
+     * @return Package name, empty if there is none, or null if more bytes
+     *  are needed to tell.
+     */
+    private static String scan(final ByteBuffer buf, final boolean eof) {
+        final int end = buf.limit();
+        int pos = PrefixJavaFile.blank(buf, PrefixJavaFile.bom(buf));
+        while (pos < end && buf.get(pos) == '@') {
+            pos = PrefixJavaFile.blank(
+                buf, PrefixJavaFile.annotation(buf, pos + 1)
+            );
+        }
+        final int word = PrefixJavaFile.word(buf, pos);
+        if (word >= end && !eof) {
+            return null;
+        }
+        if (!PrefixJavaFile.keyword(buf, pos, word)) {
+            return "";
+        }
+        final int count = PrefixJavaFile.name(buf, word, eof, null);
+        if (count == PrefixJavaFile.INCOMPLETE) {
+            return null;
+        }
+        if (count <= 0) {
+            return "";
+        }
+        final byte[] bytes = new byte[count];
+        PrefixJavaFile.name(buf, word, eof, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Collect the package name following the keyword.
+     *
+     * @param buf Buffer.
+     * @param start Position right after the keyword.
+     * @param eof Whether the buffer holds the whole file.
+     * @param out Array to copy name into, or null to only count bytes.
+     * @return Length of the name in bytes, {@link #INCOMPLETE} or
+     *  {@link #MALFORMED}.
+     */
+    private static int name(final ByteBuffer buf, final int start,
+        final boolean eof, final byte[] out) {
+        final int end = buf.limit();
+        int count = 0;
+        int pos = PrefixJavaFile.blank(buf, start);
+        while (pos < end && buf.get(pos) != ';') {
+            final byte chr = buf.get(pos);
+            if (!PrefixJavaFile.ident(chr) && chr != '.') {
+                return PrefixJavaFile.MALFORMED;
+            }
+            if (out != null) {
+                out[count] = chr;
+            }
+            count += 1;
+            pos = PrefixJavaFile.blank(buf, pos + 1);
+        }
+        if (pos >= end && !eof) {
+            return PrefixJavaFile.INCOMPLETE;
+        }
+        return count;
+    }
+
+    /**
+     * Skip an annotation, the '@' of which is already consumed.
+     *
+     * @param buf Buffer.
+     * @param start Position after '@'.
+     * @return Position after the annotation, or buffer limit if it does
+     *  not end within the buffer.
+     */
+    private static int annotation(final ByteBuffer buf, final int start) {
+        final int end = buf.limit();
+        int pos = PrefixJavaFile.word(buf, PrefixJavaFile.blank(buf, start));
+        int next = PrefixJavaFile.blank(buf, pos);
+        while (next < end && buf.get(next) == '.') {
+            pos = PrefixJavaFile.word(
+                buf, PrefixJavaFile.blank(buf, next + 1)
+            );
+            next = PrefixJavaFile.blank(buf, pos);
+        }
+        if (next >= end) {
+            return end;
+        }
+        if (buf.get(next) == '(') {
+            pos = PrefixJavaFile.arguments(buf, next + 1);
+        }
+        return pos;
+    }
+
+    /**
+     * Skip annotation arguments up to the matching closing parenthesis.
+     *
+     * @param buf Buffer.
+     * @param start Position after the opening parenthesis.
+     * @return Position after the closing parenthesis, or buffer limit.
+     */
+    private static int arguments(final ByteBuffer buf, final int start) {
+        final int end = buf.limit();
+        int depth = 1;
+        int pos = PrefixJavaFile.blank(buf, start);
+        while (pos < end) {
+            final byte chr = buf.get(pos);
+            if (chr == '"' || chr == '\'') {
+                pos = PrefixJavaFile.literal(buf, pos + 1, chr);
+            } else {
+                pos += 1;
+                if (chr == '(') {
+                    depth += 1;
+                } else if (chr == ')') {
+                    depth -= 1;
+                    if (depth == 0) {
+                        return pos;
+                    }
+                }
+            }
+            pos = PrefixJavaFile.blank(buf, pos);
+        }
+        return end;
+    }
+
+    /**
+     * Skip a string or char literal.
+     *
+     * @param buf Buffer.
+     * @param start Position after the opening quote.
+     * @param quote Quote character.
+     * @return Position after the closing quote, or buffer limit.
+     */
+    private static int literal(final ByteBuffer buf, final int start,
+        final byte quote) {
+        final int end = buf.limit();
+        int pos = start;
+        while (pos < end) {
+            final byte chr = buf.get(pos);
+            if (chr == quote) {
+                return pos + 1;
+            }
+            if (chr == '\\') {
+                pos += 2;
+            } else {
+                pos += 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Skip whitespace and comments.
+     *
+     * @param buf Buffer.
+     * @param start Position to start from.
+     * @return Position of the next meaningful byte, or buffer limit.
+     */
+    private static int blank(final ByteBuffer buf, final int start) {
+        final int end = buf.limit();
+        int pos = start;
+        while (pos < end) {
+            final byte chr = buf.get(pos);
+            if (chr == ' ' || chr == '\t' || chr == '\n' || chr == '\r'
+                || chr == '\f') {
+                pos += 1;
+            } else if (chr == '/') {
+                if (pos + 1 >= end) {
+                    return end;
+                }
+                final byte kind = buf.get(pos + 1);
+                if (kind == '/') {
+                    pos = PrefixJavaFile.eol(buf, pos + 2);
+                } else if (kind == '*') {
+                    pos = PrefixJavaFile.close(buf, pos + 2);
+                } else {
+                    break;
+                }
+            } else {
+                break;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Skip the rest of a line comment.
+     *
+     * @param buf Buffer.
+     * @param start Position inside the comment.
+     * @return Position after the line break, or buffer limit.
+     */
+    private static int eol(final ByteBuffer buf, final int start) {
+        final int end = buf.limit();
+        for (int pos = start; pos < end; ++pos) {
+            final byte chr = buf.get(pos);
+            if (chr == '\n' || chr == '\r') {
+                return pos + 1;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Skip the rest of a block comment.
+     *
+     * @param buf Buffer.
+     * @param start Position inside the comment.
+     * @return Position after the closing star and slash, or buffer limit.
+     */
+    private static int close(final ByteBuffer buf, final int start) {
+        final int end = buf.limit();
+        for (int pos = start; pos + 1 < end; ++pos) {
+            if (buf.get(pos) == '*' && buf.get(pos + 1) == '/') {
+                return pos + 2;
+            }
+        }
+        return end;
+    }
+
+    /**
+     * Skip an identifier.
+     *
+     * @param buf Buffer.
+     * @param start Position of the identifier.
+     * @return Position after the identifier.
+     */
+    private static int word(final ByteBuffer buf, final int start) {
+        final int end = buf.limit();
+        int pos = start;
+        while (pos < end && PrefixJavaFile.ident(buf.get(pos))) {
+            pos += 1;
+        }
+        return pos;
+    }
+
+    /**
+     * Whether the identifier is the package keyword.
+     *
+     * @param buf Buffer.
+     * @param start Start of the identifier.
+     * @param end End of the identifier.
+     * @return True if it is the keyword.
+     */
+    private static boolean keyword(final ByteBuffer buf, final int start,
+        final int end) {
+        if (end - start != PrefixJavaFile.KEYWORD.length) {
+            return false;
+        }
+        for (int idx = 0; idx < PrefixJavaFile.KEYWORD.length; ++idx) {
+            if (buf.get(start + idx) != PrefixJavaFile.KEYWORD[idx]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Length of the byte order mark the buffer starts with.
+     *
+     * @param buf Buffer.
+     * @return Number of bytes to skip.
+     */
+    private static int bom(final ByteBuffer buf) {
+        if (buf.limit() < PrefixJavaFile.BOM.length) {
+            return 0;
+        }
+        for (int idx = 0; idx < PrefixJavaFile.BOM.length; ++idx) {
+            if (buf.get(idx) != PrefixJavaFile.BOM[idx]) {
+                return 0;
+            }
+        }
+        return PrefixJavaFile.BOM.length;
+    }
+
+    /**
+     * Whether the byte may be part of an identifier. Bytes of multi-byte
+     * UTF-8 sequences are accepted as is.
+     *
+     * @param chr Byte.
+     * @return True if identifier byte.
+     */
+    private static boolean ident(final byte chr) {
+        return chr >= 'a' && chr <= 'z'
+            || chr >= 'A' && chr <= 'Z'
+            || chr >= '0' && chr <= '9'
+            || chr == '_' || chr == '$' || chr < 0;
+    }
+}
@@ -0,0 +1,404 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Planner finding where files of source trees go, for use in-process.
+ *
+ * <p>Java files go to the directory of their package under their source
+ * root. Resources, if asked for, go to the package of the Java file with
+ * the same name in their directory, otherwise to the package of their
+ * directory, and finally to the package of the source root. Moves are
+ * handed to a {@link Sink} as soon as they are found; nothing is moved.
+ *
+ * <pre>
+ * Plan plan = new Projectify(List.of(src)).threads(4).plan();
+ * </pre>
+ */
+public final class Projectify {
+
+    /**
+     * Number of bytes read from the start of a Java file to find its
+     * package, by default.
+     */
+    private static final int PREFIX = 8192;
+
+    /**
+     * Default maximum number of files read at once.
+     */
+    private static final int OPEN_FILES = 256;
+
+    /**
+     * Source roots.
+     */
+    private final List<Path> roots;
+
+    /**
+     * Number of threads, as for {@link Workers}.
+     */
+    private int threads = 1;
+
+    /**
+     * Number of threads listing directories, as for {@link Walker}, or
+     * null to use as many as for parsing.
+     */
+    private Integer walkers;
+
+    /**
+     * Which files are walked.
+     */
+    private Filter filter = Filter.ALL;
+
+    /**
+     * Maximum number of files read at once.
+     */
+    private int limit = Projectify.OPEN_FILES;
+
+    /**
+     * Whether to place resources too.
+     */
+    private boolean resources;
+
+    /**
+     * Whether to leave files already in place out of the plan.
+     */
+    private boolean omit;
+
+    /**
+     * Files found already in place.
+     */
+    private final LongAdder placed = new LongAdder();
+
+    /**
+     * Java file of a path.
+     */
+    private Function<Path, JavaFile> javas;
+
+    /**
+     * Statistics to update, null if not collected.
+     */
+    private Stats stats;
+
+    /**
+     * Stream for warnings.
+     */
+    private PrintStream warnings = System.err;
+
+    /**
+     * Ctor.
+     *
+     * @param sources Source roots, none inside another.
+     * @throws IllegalArgumentException If source roots overlap.
+     */
+    public Projectify(final List<Path> sources) {
+        final String overlap = Projectify.overlap(sources);
+        if (overlap != null) {
+            throw new IllegalArgumentException(overlap);
+        }
+        this.roots = List.copyOf(sources);
+        final Buffers buffers = new Buffers(Projectify.PREFIX);
+        this.javas =
+            file -> new PrefixJavaFile(file, buffers, null, this.warnings);
+    }
+
+    /**
+     * Find source roots which are the same or inside one another, as files
+     * under them would be walked and placed once per root.
+     *
+     * @param sources Source roots.
+     * @return Description of the first overlap, or null if there is none.
+     */
+    static String overlap(final List<Path> sources) {
+        final List<Path> paths = new ArrayList<>(sources.size());
+        for (final Path src : sources) {
+            paths.add(src.toAbsolutePath().normalize());
+        }
+        for (int idx = 0; idx < paths.size(); ++idx) {
+            for (int other = 0; other < paths.size(); ++other) {
+                if (idx != other
+                    && paths.get(other).startsWith(paths.get(idx))) {
+                    return "Source folders overlap: " + sources.get(idx)
+                        + " and " + sources.get(other);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Set number of threads.
+     *
+     * @param count Number of threads: 1 is serial, 0 starts a virtual
+     *  thread per file.
+     * @return This planner.
+     */
+    public Projectify threads(final int count) {
+        this.threads = count;
+        return this;
+    }
+
+    /**
+     * Set number of threads listing directories, independently of threads
+     * reading Java files.
+     *
+     * @param count Number of threads: 1 walks in the calling thread, 0
+     *  uses a thread per processor.
+     * @return This planner.
+     */
+    public Projectify walkers(final int count) {
+        this.walkers = count;
+        return this;
+    }
+
+    /**
+     * Set which files are walked; skipped directories are not listed.
+     *
+     * @param only Filter of files and directories.
+     * @return This planner.
+     */
+    public Projectify filter(final Filter only) {
+        this.filter = only;
+        return this;
+    }
+
+    /**
+     * Set maximum number of files read at once.
+     *
+     * @param count Maximum number of open files.
+     * @return This planner.
+     */
+    public Projectify limit(final int count) {
+        this.limit = count;
+        return this;
+    }
+
+    /**
+     * Set whether to place non-Java files too.
+     *
+     * @param place Whether to place resources.
+     * @return This planner.
+     */
+    public Projectify resources(final boolean place) {
+        this.resources = place;
+        return this;
+    }
+
+    /**
+     * Set whether files already in their package directory are left out
+     * of the plan, rather than planned to move onto themselves.
+     *
+     * @param skip Whether to leave them out.
+     * @return This planner.
+     */
+    public Projectify omitPlaced(final boolean skip) {
+        this.omit = skip;
+        return this;
+    }
+
+    /**
+     * Number of files found already in place by the last plan.
+     *
+     * @return Count of files, left out of the plan or not.
+     */
+    public long placed() {
+        return this.placed.sum();
+    }
+
+    /**
+     * Set how packages of Java files are found.
+     *
+     * @param java Java file of a path.
+     * @return This planner.
+     */
+    public Projectify javas(final Function<Path, JavaFile> java) {
+        this.javas = java;
+        return this;
+    }
+
+    /**
+     * Set statistics to update.
+     *
+     * @param collected Statistics, or null.
+     * @return This planner.
+     */
+    public Projectify stats(final Stats collected) {
+        this.stats = collected;
+        return this;
+    }
+
+    /**
+     * Set stream for warnings.
+     *
+     * @param stream Stream for warnings.
+     * @return This planner.
+     */
+    public Projectify warnings(final PrintStream stream) {
+        this.warnings = stream;
+        return this;
+    }
+
+    /**
+     * Find where every file of the source trees has to go.
+     *
+     * @return Plan in source path order.
+     * @throws IOException If walking the trees fails.
+     */
+    public Plan plan() throws IOException {
+        final Plan plan = new Plan();
+        this.plan(plan);
+        return plan;
+    }
+
+    /**
+     * Find where every file of the source trees has to go, handing moves
+     * over as they are found, possibly from several threads.
+     *
+     * <p>Listing directories and reading Java files run concurrently, on
+     * threads of their own. At most {@link #limit} files are read at once,
+     * so the walk pauses while readers, or a sink blocking them, lag
+     * behind.
+     *
+     * @param sink Where to put moves.
+     * @throws IOException If walking the trees fails.
+     */
+    public void plan(final Sink sink) throws IOException {
+        this.placed.reset();
+        final Directories dirs = new Directories(this.resources);
+        final Map<Path, Packages> packages = new HashMap<>();
+        for (final Path root : this.roots) {
+            packages.put(root, new Packages(root));
+        }
+        final Map<Path, Path> found = new ConcurrentSkipListMap<>();
+        int listing = this.threads;
+        if (this.walkers != null) {
+            listing = this.walkers;
+        }
+        long start = System.nanoTime();
+        try (Workers workers = new Workers(this.threads, this.limit)) {
+            new Walker(listing, this.filter).walk(
+                this.roots,
+                (root, file) -> {
+                    if (file.getFileName().toString().endsWith(".java")) {
+                        workers.submit(
+                            () -> this.place(
+                                file, packages.get(root), sink, dirs
+                            )
+                        );
+                    } else if (this.resources) {
+                        found.put(file, root);
+                    }
+                }
+            );
+            workers.await();
+        }
+        this.phase("scan", start);
+        start = System.nanoTime();
+        found.forEach(
+            (file, root) -> this.resource(root, file, sink, dirs)
+        );
+        this.phase("resources", start);
+    }
+
+    /**
+     * Add a Java file to the plan, organized by its package.
+     *
+     * @param file Java file found in the source tree.
+     * @param packages Packages of the source root of the file.
+     * @param sink Plan to add the move to.
+     * @param dirs Index of directories to update.
+     */
+    private void place(final Path file, final Packages packages,
+        final Sink sink, final Directories dirs) {
+        final Path dir = packages.dir(this.javas.apply(file).pkg());
+        final Path dest = dir.resolve(file.getFileName().toString());
+        this.put(sink, file, dest, dir.equals(file.getParent()));
+        dirs.add(file, dest);
+        if (this.stats != null) {
+            this.stats.java();
+        }
+    }
+
+    /**
+     * Add a non-Java file to the plan, once all Java files are placed.
+     *
+     * @param root Source root of the file.
+     * @param file Resource file.
+     * @param sink Plan to add the move to.
+     * @param dirs Index of directories with Java files.
+     */
+    private void resource(final Path root, final Path file, final Sink sink,
+        final Directories dirs) {
+        final String name = file.getFileName().toString();
+        final int dot = name.lastIndexOf('.');
+        String base = name;
+        if (dot >= 0) {
+            base = name.substring(0, dot);
+        }
+        final Path sibling =
+            dirs.file(file.resolveSibling(base + ".java"));
+        Path dest;
+        if (sibling == null) {
+            dest = dirs.destination(file.getParent());
+            if (dest == null) {
+                dest = dirs.destination(root);
+            }
+        } else {
+            dest = sibling;
+        }
+        if (this.stats != null) {
+            this.stats.resource(dest != null);
+        }
+        if (dest == null) {
+            this.warnings.println(
+                "Warning: Could not determine destination for "
+                    + "resource file: " + file
+            );
+        } else {
+            this.put(sink, file, dest.resolve(file.getFileName()),
+                dest.equals(file.getParent()));
+        }
+    }
+
+    /**
+     * Add a move to the plan, unless the file is in place and such files
+     * are left out.
+     *
+     * @param sink Plan to add the move to.
+     * @param file File to move.
+     * @param dest Destination.
+     * @param same Whether the file is already at its destination.
+     */
+    private void put(final Sink sink, final Path file, final Path dest,
+        final boolean same) {
+        if (same) {
+            this.placed.increment();
+            if (this.stats != null) {
+                this.stats.placed();
+            }
+        }
+        if (!same || !this.omit) {
+            sink.put(file, dest);
+        }
+    }
+
+    /**
+     * Add wall time of a phase to statistics, if collected.
+     *
+     * @param name Name of the phase.
+     * @param start Value of {@link System#nanoTime()} at its start.
+     */
+    private void phase(final String name, final long start) {
+        if (this.stats != null) {
+            this.stats.phase(name, start);
+        }
+    }
+}
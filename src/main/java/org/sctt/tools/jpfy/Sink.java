@@ -0,0 +1,17 @@
+package org.sctt.tools.jpfy;
+
+import java.nio.file.Path;
+
+/**
+ * Receiver of planned moves.
+ */
+public interface Sink {
+
+    /**
+     * Accept a move. May be called from several threads at once.
+     *
+     * @param source File to move.
+     * @param destination Where the file should end up.
+     */
+    void put(Path source, Path destination);
+}
@@ -0,0 +1,387 @@
+package org.sctt.tools.jpfy;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.BiConsumer;
+
+/**
+ * Plan of moves kept in bounded memory, ordered by destination.
+ *
+ * <p>Moves are buffered until the buffer is full, then sorted and written
+ * to a run file. Visiting the plan merges the runs, so memory holds one
+ * buffer while planning and one move per run while visiting. Moves come
+ * out ordered by destination directory, then by file name, so all moves
+ * into a directory are next to each other. If everything fits in the
+ * buffer, nothing is written.
+ */
+public final class Spill implements Sink, AutoCloseable {
+
+    /**
+     * Size of stream buffers of run files.
+     */
+    private static final int BUFFER = 1 << 16;
+
+    /**
+     * Maximum number of runs merged at once.
+     */
+    private static final int FAN_IN = 64;
+
+    /**
+     * Directory for run files.
+     */
+    private final Path dir;
+
+    /**
+     * File system of planned paths.
+     */
+    private final FileSystem fs;
+
+    /**
+     * Moves not yet written.
+     */
+    private final Move[] buffer;
+
+    /**
+     * Number of moves in the buffer.
+     */
+    private int held;
+
+    /**
+     * Total number of moves.
+     */
+    private long count;
+
+    /**
+     * Sorted run files.
+     */
+    private final List<Path> runs = new ArrayList<>();
+
+    /**
+     * Ctor.
+     *
+     * @param tmp Directory for run files, created if missing.
+     * @param size Maximum number of moves held in memory.
+     * @param paths File system of planned paths.
+     */
+    public Spill(final Path tmp, final int size, final FileSystem paths) {
+        if (size < 1) {
+            throw new IllegalArgumentException(
+                "Number of moves in memory must be positive"
+            );
+        }
+        this.dir = tmp;
+        this.fs = paths;
+        this.buffer = new Move[size];
+    }
+
+    @Override
+    public synchronized void put(final Path source, final Path destination) {
+        this.buffer[this.held] = new Move(
+            String.valueOf(destination.getParent()),
+            String.valueOf(destination.getFileName()),
+            source.toString()
+        );
+        this.held += 1;
+        this.count += 1;
+        if (this.held == this.buffer.length) {
+            try {
+                this.spill();
+            } catch (final IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+
+    /**
+     * Number of planned moves.
+     *
+     * @return Count of moves.
+     */
+    public synchronized long size() {
+        return this.count;
+    }
+
+    /**
+     * Number of run files written so far.
+     *
+     * @return Count of runs.
+     */
+    public synchronized int spilled() {
+        return this.runs.size();
+    }
+
+    /**
+     * Visit every move in destination order. Not to be called while
+     * moves are still being put.
+     *
+     * @param action Consumer of source and destination.
+     * @throws IOException If run files cannot be read or written.
+     */
+    public synchronized void forEach(final BiConsumer<Path, Path> action)
+        throws IOException {
+        if (this.runs.isEmpty()) {
+            Arrays.sort(this.buffer, 0, this.held);
+            for (int idx = 0; idx < this.held; ++idx) {
+                this.buffer[idx].visit(this.fs, action);
+            }
+            return;
+        }
+        if (this.held > 0) {
+            this.spill();
+        }
+        while (this.runs.size() > Spill.FAN_IN) {
+            final List<Path> batch =
+                new ArrayList<>(this.runs.subList(0, Spill.FAN_IN));
+            this.runs.subList(0, Spill.FAN_IN).clear();
+            final Path merged = this.run();
+            try (DataOutputStream out = Spill.output(merged)) {
+                Spill.merge(batch, move -> move.write(out));
+            }
+            for (final Path run : batch) {
+                Files.delete(run);
+            }
+            this.runs.add(merged);
+        }
+        Spill.merge(this.runs, move -> move.visit(this.fs, action));
+    }
+
+    /**
+     * Delete run files.
+     *
+     * @throws IOException If deleting fails.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (final Path run : this.runs) {
+            Files.deleteIfExists(run);
+        }
+        this.runs.clear();
+    }
+
+    /**
+     * Sort the buffer and write it to a new run file.
+     *
+     * @throws IOException If writing fails.
+     */
+    private void spill() throws IOException {
+        Arrays.sort(this.buffer, 0, this.held);
+        final Path file = this.run();
+        try (DataOutputStream out = Spill.output(file)) {
+            for (int idx = 0; idx < this.held; ++idx) {
+                this.buffer[idx].write(out);
+                this.buffer[idx] = null;
+            }
+        }
+        this.runs.add(file);
+        this.held = 0;
+    }
+
+    /**
+     * New empty run file.
+     *
+     * @return Path of the file.
+     * @throws IOException If it cannot be created.
+     */
+    private Path run() throws IOException {
+        Files.createDirectories(this.dir);
+        return Files.createTempFile(this.dir, "jpfy-run", ".bin");
+    }
+
+    /**
+     * Merge sorted runs.
+     *
+     * @param files Run files.
+     * @param action Consumer of moves in order.
+     * @throws IOException If reading fails.
+     */
+    private static void merge(final List<Path> files, final Visitor action)
+        throws IOException {
+        final List<DataInputStream> streams = new ArrayList<>(files.size());
+        try {
+            final PriorityQueue<Head> heads = new PriorityQueue<>();
+            for (final Path file : files) {
+                final DataInputStream in = new DataInputStream(
+                    new BufferedInputStream(
+                        Files.newInputStream(file), Spill.BUFFER
+                    )
+                );
+                streams.add(in);
+                final Move first = Move.read(in);
+                if (first != null) {
+                    heads.add(new Head(first, in));
+                }
+            }
+            while (!heads.isEmpty()) {
+                final Head head = heads.poll();
+                action.accept(head.move);
+                final Move next = Move.read(head.in);
+                if (next != null) {
+                    heads.add(new Head(next, head.in));
+                }
+            }
+        } finally {
+            for (final DataInputStream in : streams) {
+                in.close();
+            }
+        }
+    }
+
+    /**
+     * Buffered output to a run file.
+     *
+     * @param file Run file.
+     * @return Stream.
+     * @throws IOException If the file cannot be opened.
+     */
+    private static DataOutputStream output(final Path file)
+        throws IOException {
+        return new DataOutputStream(
+            new BufferedOutputStream(Files.newOutputStream(file), Spill.BUFFER)
+        );
+    }
+
+    /**
+     * Consumer of merged moves.
+     */
+    private interface Visitor {
+
+        /**
+         * Accept a move.
+         *
+         * @param move Move.
+         * @throws IOException If handling it fails.
+         */
+        void accept(Move move) throws IOException;
+    }
+
+    /**
+     * Move as stored in runs.
+     */
+    private static final class Move implements Comparable<Move> {
+
+        /**
+         * Destination directory.
+         */
+        private final String dir;
+
+        /**
+         * Destination file name.
+         */
+        private final String name;
+
+        /**
+         * Source file.
+         */
+        private final String source;
+
+        /**
+         * Ctor.
+         *
+         * @param parent Destination directory.
+         * @param file Destination file name.
+         * @param from Source file.
+         */
+        Move(final String parent, final String file, final String from) {
+            this.dir = parent;
+            this.name = file;
+            this.source = from;
+        }
+
+        @Override
+        public int compareTo(final Move other) {
+            int result = this.dir.compareTo(other.dir);
+            if (result == 0) {
+                result = this.name.compareTo(other.name);
+            }
+            if (result == 0) {
+                result = this.source.compareTo(other.source);
+            }
+            return result;
+        }
+
+        /**
+         * Hand the move over as paths.
+         *
+         * @param fs File system of the paths.
+         * @param action Consumer of source and destination.
+         */
+        void visit(final FileSystem fs, final BiConsumer<Path, Path> action) {
+            action.accept(
+                fs.getPath(this.source), fs.getPath(this.dir, this.name)
+            );
+        }
+
+        /**
+         * Write to a run.
+         *
+         * @param out Run stream.
+         * @throws IOException If writing fails.
+         */
+        void write(final DataOutputStream out) throws IOException {
+            out.writeUTF(this.dir);
+            out.writeUTF(this.name);
+            out.writeUTF(this.source);
+        }
+
+        /**
+         * Read the next move of a run.
+         *
+         * @param in Run stream.
+         * @return Move, or null at the end of the run.
+         * @throws IOException If reading fails.
+         */
+        static Move read(final DataInputStream in) throws IOException {
+            final String parent;
+            try {
+                parent = in.readUTF();
+            } catch (final EOFException ex) {
+                return null;
+            }
+            return new Move(parent, in.readUTF(), in.readUTF());
+        }
+    }
+
+    /**
+     * Smallest unmerged move of a run.
+     */
+    private static final class Head implements Comparable<Head> {
+
+        /**
+         * Move.
+         */
+        private final Move move;
+
+        /**
+         * Rest of the run.
+         */
+        private final DataInputStream in;
+
+        /**
+         * Ctor.
+         *
+         * @param first Move.
+         * @param rest Rest of the run.
+         */
+        Head(final Move first, final DataInputStream rest) {
+            this.move = first;
+            this.in = rest;
+        }
+
+        @Override
+        public int compareTo(final Head other) {
+            return this.move.compareTo(other.move);
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package org.sctt.tools.jpfy;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Stage of a pipeline, handing moves over to a sink on its own threads.
+ *
+ * <p>Moves wait in a bounded queue. When it is full, {@link #put} blocks,
+ * so a slow sink throttles whatever feeds the stage instead of letting
+ * moves pile up in memory. A failure of the sink is rethrown to the
+ * producer by the next {@link #put} or by {@link #close}; moves after it
+ * are dropped.
+ */
+public final class Stage implements Sink, AutoCloseable {
+
+    /**
+     * Marker telling a consumer thread to stop.
+     */
+    private static final Map.Entry<Path, Path> END =
+        Map.entry(Paths.get(""), Paths.get(""));
+
+    /**
+     * Moves waiting for the sink.
+     */
+    private final BlockingQueue<Map.Entry<Path, Path>> queue;
+
+    /**
+     * Sink of the moves.
+     */
+    private final Sink target;
+
+    /**
+     * Threads handing moves over to the sink.
+     */
+    private final Thread[] consumers;
+
+    /**
+     * First failure of the sink.
+     */
+    private final AtomicReference<RuntimeException> failure =
+        new AtomicReference<>();
+
+    /**
+     * Ctor.
+     *
+     * @param sink Sink of the moves, called from several threads if more
+     *  than one.
+     * @param threads Number of threads calling the sink.
+     * @param capacity Maximum number of moves waiting.
+     */
+    public Stage(final Sink sink, final int threads, final int capacity) {
+        if (threads < 1) {
+            throw new IllegalArgumentException(
+                "Number of stage threads must be positive"
+            );
+        }
+        if (capacity < 1) {
+            throw new IllegalArgumentException(
+                "Capacity of stage queue must be positive"
+            );
+        }
+        this.target = sink;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.consumers = new Thread[threads];
+        for (int idx = 0; idx < threads; ++idx) {
+            this.consumers[idx] = Thread.ofPlatform().daemon()
+                .name("jpfy-stage-", idx).start(this::consume);
+        }
+    }
+
+    @Override
+    public void put(final Path source, final Path destination) {
+        this.rethrow();
+        this.enqueue(Map.entry(source, destination));
+    }
+
+    /**
+     * Wait until all moves are handed over to the sink.
+     */
+    @Override
+    public void close() {
+        for (int idx = 0; idx < this.consumers.length; ++idx) {
+            this.enqueue(Stage.END);
+        }
+        boolean interrupted = false;
+        for (final Thread consumer : this.consumers) {
+            while (consumer.isAlive()) {
+                try {
+                    consumer.join();
+                } catch (final InterruptedException ex) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        this.rethrow();
+    }
+
+    /**
+     * Hand moves over to the sink until told to stop.
+     */
+    private void consume() {
+        while (true) {
+            final Map.Entry<Path, Path> move;
+            try {
+                move = this.queue.take();
+            } catch (final InterruptedException ex) {
+                continue;
+            }
+            if (move == Stage.END) {
+                break;
+            }
+            if (this.failure.get() == null) {
+                try {
+                    this.target.put(move.getKey(), move.getValue());
+                } catch (final RuntimeException ex) {
+                    this.failure.compareAndSet(null, ex);
+                }
+            }
+        }
+    }
+
+    /**
+     * Add to the queue, waiting for room without giving up on interrupts.
+     *
+     * @param move Move to add.
+     */
+    private void enqueue(final Map.Entry<Path, Path> move) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                this.queue.put(move);
+                break;
+            } catch (final InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rethrow the first failure of the sink, if any.
+     */
+    private void rethrow() {
+        final RuntimeException ex = this.failure.get();
+        if (ex != null) {
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,314 @@
+package org.sctt.tools.jpfy;
+
+import java.io.PrintStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timings of a run.
+ *
+ * <p>Counters are striped, so threads extracting packages in parallel do
+ * not contend on them. Latencies of package extraction go to a histogram
+ * with a bucket per power of two nanoseconds.
+ */
+public final class Stats {
+
+    /**
+     * Number of histogram buckets, one per bit of a long.
+     */
+    private static final int BUCKETS = Long.SIZE;
+
+    /**
+     * Percentiles reported of the histogram.
+     */
+    private static final int[] PERCENTILES = {50, 90, 99};
+
+    /**
+     * Hundred percent.
+     */
+    private static final int HUNDRED = 100;
+
+    /**
+     * Wall time of phases in nanoseconds, in order of first appearance.
+     */
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    /**
+     * Start of the run.
+     */
+    private final long started = System.nanoTime();
+
+    /**
+     * Java files found.
+     */
+    private final LongAdder javas = new LongAdder();
+
+    /**
+     * Java files parsed, as opposed to found in cache.
+     */
+    private final LongAdder parsed = new LongAdder();
+
+    /**
+     * Resource files found.
+     */
+    private final LongAdder resources = new LongAdder();
+
+    /**
+     * Resource files without destination.
+     */
+    private final LongAdder skipped = new LongAdder();
+
+    /**
+     * Files found already in their package directory.
+     */
+    private final LongAdder unmoved = new LongAdder();
+
+    /**
+     * Bytes read to find packages.
+     */
+    private final LongAdder bytes = new LongAdder();
+
+    /**
+     * Histogram of package extraction latencies.
+     */
+    private final LongAdder[] latency = new LongAdder[Stats.BUCKETS];
+
+    /**
+     * Ctor.
+     */
+    public Stats() {
+        for (int idx = 0; idx < Stats.BUCKETS; ++idx) {
+            this.latency[idx] = new LongAdder();
+        }
+    }
+
+    /**
+     * Add wall time of a phase, from its start until now.
+     *
+     * @param name Name of the phase.
+     * @param start Value of {@link System#nanoTime()} at its start.
+     */
+    public synchronized void phase(final String name, final long start) {
+        this.phases.merge(name, System.nanoTime() - start, Long::sum);
+    }
+
+    /**
+     * Count a Java file found.
+     */
+    public void java() {
+        this.javas.increment();
+    }
+
+    /**
+     * Count a resource file found.
+     *
+     * @param placed Whether its destination is known.
+     */
+    public void resource(final boolean placed) {
+        this.resources.increment();
+        if (!placed) {
+            this.skipped.increment();
+        }
+    }
+
+    /**
+     * Count a file found already in its package directory.
+     */
+    public void placed() {
+        this.unmoved.increment();
+    }
+
+    /**
+     * Counter of bytes read to find packages.
+     *
+     * @return Counter.
+     */
+    public LongAdder bytes() {
+        return this.bytes;
+    }
+
+    /**
+     * Java file counting its parses and their latency.
+     *
+     * @param origin Java file parsing the source.
+     * @return Measured Java file.
+     */
+    public JavaFile measured(final JavaFile origin) {
+        return () -> {
+            final long start = System.nanoTime();
+            try {
+                return origin.pkg();
+            } finally {
+                final long nanos = Math.max(1, System.nanoTime() - start);
+                this.latency[Stats.BUCKETS - 1
+                    - Long.numberOfLeadingZeros(nanos)].increment();
+                this.parsed.increment();
+            }
+        };
+    }
+
+    /**
+     * Print a human readable summary.
+     *
+     * @param out Stream to print to.
+     */
+    public synchronized void print(final PrintStream out) {
+        final long total = System.nanoTime() - this.started;
+        out.println("Stats:");
+        this.phases.forEach(
+            (name, nanos) -> out.printf("  %-12s %10.1f ms%n", name,
+                Stats.millis(nanos))
+        );
+        out.printf("  %-12s %10.1f ms%n", "total", Stats.millis(total));
+        out.printf("  java files   %10d%n", this.javas.sum());
+        out.printf("  parsed       %10d%n", this.parsed.sum());
+        out.printf("  cache hits   %10d%n", this.hits());
+        out.printf("  resources    %10d%n", this.resources.sum());
+        out.printf("  skipped      %10d%n", this.skipped.sum());
+        out.printf("  in place     %10d%n", this.unmoved.sum());
+        out.printf("  bytes read   %10d%n", this.bytes.sum());
+        out.printf("  files/s      %10.0f%n", this.rate(total));
+        final long[] counts = this.counts();
+        for (final int pct : Stats.PERCENTILES) {
+            out.printf(
+                "  parse p%-4d <= %8.1f us%n", pct,
+                Stats.micros(Stats.percentile(counts, pct))
+            );
+        }
+    }
+
+    /**
+     * Summary in JSON.
+     *
+     * @return JSON object on a single line.
+     */
+    public synchronized String json() {
+        final long total = System.nanoTime() - this.started;
+        final StringBuilder json = new StringBuilder("{\"phases\":{");
+        String sep = "";
+        for (final Map.Entry<String, Long> phase : this.phases.entrySet()) {
+            json.append(sep).append('"').append(phase.getKey()).append("\":")
+                .append(phase.getValue());
+            sep = ",";
+        }
+        json.append("},\"totalNanos\":").append(total)
+            .append(",\"javaFiles\":").append(this.javas.sum())
+            .append(",\"parsed\":").append(this.parsed.sum())
+            .append(",\"cacheHits\":").append(this.hits())
+            .append(",\"resources\":").append(this.resources.sum())
+            .append(",\"skipped\":").append(this.skipped.sum())
+            .append(",\"inPlace\":").append(this.unmoved.sum())
+            .append(",\"bytesRead\":").append(this.bytes.sum())
+            .append(",\"filesPerSecond\":")
+            .append(Math.round(this.rate(total)))
+            .append(",\"parseNanos\":{");
+        final long[] counts = this.counts();
+        for (final int pct : Stats.PERCENTILES) {
+            json.append("\"p").append(pct).append("\":")
+                .append(Stats.percentile(counts, pct)).append(',');
+        }
+        json.append("\"buckets\":[");
+        sep = "";
+        for (int idx = 0; idx < counts.length; ++idx) {
+            if (counts[idx] > 0) {
+                json.append(sep).append("{\"le\":").append(Stats.bound(idx))
+                    .append(",\"count\":").append(counts[idx]).append('}');
+                sep = ",";
+            }
+        }
+        return json.append("]}}").toString();
+    }
+
+    /**
+     * Java files whose package came from cache.
+     *
+     * @return Count of files.
+     */
+    private long hits() {
+        return Math.max(0, this.javas.sum() - this.parsed.sum());
+    }
+
+    /**
+     * Files found per second.
+     *
+     * @param nanos Duration of the run.
+     * @return Rate.
+     */
+    private double rate(final long nanos) {
+        return (this.javas.sum() + this.resources.sum())
+            * (double) TimeUnit.SECONDS.toNanos(1) / Math.max(1, nanos);
+    }
+
+    /**
+     * Snapshot of histogram buckets.
+     *
+     * @return Counts per bucket.
+     */
+    private long[] counts() {
+        final long[] counts = new long[Stats.BUCKETS];
+        for (int idx = 0; idx < Stats.BUCKETS; ++idx) {
+            counts[idx] = this.latency[idx].sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Upper bound of a percentile of the histogram.
+     *
+     * @param counts Counts per bucket.
+     * @param pct Percentile.
+     * @return Upper bound in nanoseconds, zero if empty.
+     */
+    private static long percentile(final long[] counts, final int pct) {
+        long all = 0;
+        for (final long count : counts) {
+            all += count;
+        }
+        long seen = 0;
+        long result = 0;
+        for (int idx = 0; idx < counts.length && all > 0; ++idx) {
+            seen += counts[idx];
+            if (seen * Stats.HUNDRED >= all * pct) {
+                result = Stats.bound(idx);
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Upper bound of a bucket.
+     *
+     * @param idx Index of the bucket.
+     * @return Largest latency in the bucket, in nanoseconds.
+     */
+    private static long bound(final int idx) {
+        long result = Long.MAX_VALUE;
+        if (idx < Stats.BUCKETS - 1) {
+            result = (1L << idx + 1) - 1;
+        }
+        return result;
+    }
+
+    /**
+     * Nanoseconds to milliseconds.
+     *
+     * @param nanos Nanoseconds.
+     * @return Milliseconds.
+     */
+    private static double millis(final long nanos) {
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * Nanoseconds to microseconds.
+     *
+     * @param nanos Nanoseconds.
+     * @return Microseconds.
+     */
+    private static double micros(final long nanos) {
+        return nanos / (double) TimeUnit.MICROSECONDS.toNanos(1);
+    }
+}
@@ -0,0 +1,20 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Way of bringing a file to its destination.
+ */
+public interface Transfer {
+
+    /**
+     * Transfer a single file. The parent directory of the destination
+     * already exists.
+     *
+     * @param source File to transfer.
+     * @param destination Where the file should end up.
+     * @throws IOException If transfer fails.
+     */
+    void apply(Path source, Path destination) throws IOException;
+}
@@ -0,0 +1,65 @@
+package org.sctt.tools.jpfy;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.nio.file.Path;
+
+/**
+ * Flight recorder event of moving or copying a file.
+ */
+@Name("org.sctt.jpfy.Transfer")
+@Label("Transfer")
+@Category("jpfy")
+@Description("File moved or copied")
+public final class TransferEvent extends Event {
+
+    /**
+     * Kind of transfer, move or copy.
+     */
+    @Label("Operation")
+    private String operation;
+
+    /**
+     * Source file.
+     */
+    @Label("Source")
+    private String source;
+
+    /**
+     * Destination file.
+     */
+    @Label("Destination")
+    private String destination;
+
+    /**
+     * Size of the file.
+     */
+    @Label("Size")
+    @DataAmount
+    private long size;
+
+    /**
+     * End the event and commit it if recorded.
+     *
+     * @param kind Kind of transfer.
+     * @param from Source file.
+     * @param dest Destination file.
+     * @param bytes Size of the file.
+     */
+    public void finish(final String kind, final Path from, final Path dest,
+        final long bytes) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.operation = kind;
+            this.source = from.toString();
+            this.destination = dest.toString();
+            this.size = bytes;
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.sctt.tools.jpfy;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.nio.file.Path;
+
+/**
+ * Flight recorder event of listing a directory of the source tree.
+ */
+@Name("org.sctt.jpfy.Walk")
+@Label("Walk")
+@Category("jpfy")
+@Description("Directory of the source tree listed")
+public final class WalkEvent extends Event {
+
+    /**
+     * Directory.
+     */
+    @Label("Path")
+    private String path;
+
+    /**
+     * Files directly in the directory.
+     */
+    @Label("Files")
+    private long files;
+
+    /**
+     * Count a file directly in the directory.
+     */
+    public void count() {
+        this.files += 1;
+    }
+
+    /**
+     * End the event and commit it if recorded.
+     *
+     * @param dir Directory.
+     */
+    public void finish(final Path dir) {
+        this.end();
+        if (this.shouldCommit()) {
+            this.path = dir.toString();
+            this.commit();
+        }
+    }
+}
@@ -0,0 +1,220 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BiConsumer;
+
+/**
+ * Walker of source trees, listing directories in parallel.
+ *
+ * <p>Every directory is listed by its own fork/join task, so idle threads
+ * steal subdirectories of wide trees. Each entry is looked at with a
+ * single attributes read, without following links; symbolic links to
+ * regular files count as files, symbolic links to directories are not
+ * followed. Files are reported as soon as they are listed, from any
+ * thread, together with the root they were found under. A {@link Filter}
+ * decides while listing which files are reported and which directories
+ * are listed at all.
+ */
+public final class Walker {
+
+    /**
+     * Number of threads listing directories.
+     */
+    private final int threads;
+
+    /**
+     * Which files are walked.
+     */
+    private final Filter filter;
+
+    /**
+     * Ctor.
+     *
+     * @param count Number of threads: 1 walks in the calling thread, 0
+     *  uses a thread per processor.
+     */
+    public Walker(final int count) {
+        this(count, Filter.ALL);
+    }
+
+    /**
+     * Ctor.
+     *
+     * @param count Number of threads: 1 walks in the calling thread, 0
+     *  uses a thread per processor.
+     * @param only Which files are walked.
+     */
+    public Walker(final int count, final Filter only) {
+        if (count < 0) {
+            throw new IllegalArgumentException(
+                "Number of threads must not be negative"
+            );
+        }
+        this.threads = count;
+        this.filter = only;
+    }
+
+    /**
+     * Walk trees, reporting every regular file.
+     *
+     * @param roots Roots of the trees.
+     * @param found Consumer of root and file, called concurrently.
+     * @throws IOException If listing a directory fails.
+     */
+    public void walk(final List<Path> roots,
+        final BiConsumer<Path, Path> found) throws IOException {
+        try {
+            if (this.threads == 1) {
+                for (final Path root : roots) {
+                    final Deque<Listing> dirs = new ArrayDeque<>();
+                    dirs.push(this.listing(root, found));
+                    while (!dirs.isEmpty()) {
+                        this.list(dirs.pop()).forEach(dirs::push);
+                    }
+                }
+            } else {
+                int parallelism = this.threads;
+                if (parallelism == 0) {
+                    parallelism = Runtime.getRuntime().availableProcessors();
+                }
+                final ForkJoinPool pool = new ForkJoinPool(parallelism);
+                try {
+                    final List<Listing> tasks = new ArrayList<>(roots.size());
+                    for (final Path root : roots) {
+                        tasks.add(this.listing(root, found));
+                    }
+                    pool.invoke(
+                        ForkJoinTask.adapt(() -> ForkJoinTask.invokeAll(tasks))
+                    );
+                } finally {
+                    pool.shutdownNow();
+                }
+            }
+        } catch (final UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    /**
+     * Listing of a source root.
+     *
+     * @param root Source root.
+     * @param found Consumer of root and file.
+     * @return Listing.
+     */
+    private Listing listing(final Path root,
+        final BiConsumer<Path, Path> found) {
+        return new Listing(this, root, root, this.filter.top(root), found);
+    }
+
+    /**
+     * List a directory, reporting its files.
+     *
+     * @param task Directory to list.
+     * @return Listings of subdirectories.
+     */
+    private List<Listing> list(final Listing task) {
+        final WalkEvent event = new WalkEvent();
+        event.begin();
+        final List<Listing> subdirs = new ArrayList<>();
+        try (DirectoryStream<Path> entries =
+            Files.newDirectoryStream(task.dir)) {
+            final Filter.Scope scope = this.filter.enter(task.scope, task.dir);
+            for (final Path entry : entries) {
+                final BasicFileAttributes attrs = Files.readAttributes(
+                    entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS
+                );
+                if (attrs.isDirectory()) {
+                    if (this.filter.walks(scope, entry)) {
+                        subdirs.add(
+                            new Listing(
+                                this, task.root, entry, scope, task.found
+                            )
+                        );
+                    }
+                } else if ((attrs.isRegularFile() || attrs.isSymbolicLink()
+                    && Files.isRegularFile(entry))
+                    && this.filter.accepts(scope, entry)) {
+                    event.count();
+                    task.found.accept(task.root, entry);
+                }
+            }
+        } catch (final IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        event.finish(task.dir);
+        return subdirs;
+    }
+
+    /**
+     * Task listing a directory and forking tasks for its subdirectories.
+     */
+    private static final class Listing extends RecursiveAction {
+
+        /**
+         * Serial version.
+         */
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * Walker doing the listing.
+         */
+        private final transient Walker walker;
+
+        /**
+         * Root the directory is under.
+         */
+        private final transient Path root;
+
+        /**
+         * Directory.
+         */
+        private final transient Path dir;
+
+        /**
+         * Rules of the parent directory, null to walk everything.
+         */
+        private final transient Filter.Scope scope;
+
+        /**
+         * Consumer of root and file.
+         */
+        private final transient BiConsumer<Path, Path> found;
+
+        /**
+         * Ctor.
+         *
+         * @param owner Walker doing the listing.
+         * @param top Root the directory is under.
+         * @param path Directory.
+         * @param rules Rules of the parent directory.
+         * @param consumer Consumer of root and file.
+         */
+        Listing(final Walker owner, final Path top, final Path path,
+            final Filter.Scope rules, final BiConsumer<Path, Path> consumer) {
+            this.walker = owner;
+            this.root = top;
+            this.dir = path;
+            this.scope = rules;
+            this.found = consumer;
+        }
+
+        @Override
+        protected void compute() {
+            ForkJoinTask.invokeAll(this.walker.list(this));
+        }
+    }
+}
@@ -0,0 +1,287 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Watches a source tree and moves Java files into their package
+ * directories as they appear.
+ *
+ * <p>Every directory of the tree is watched, including ones created
+ * later. Events for a file are debounced: the file is parsed once no
+ * event arrived for it during the debounce interval, so a file being
+ * written is not read half-way. Directories and files the filter skips
+ * are neither watched nor moved; {@code .gitignore} files are read when
+ * their directory starts being watched.
+ */
+public final class Watch {
+
+    /**
+     * Source root.
+     */
+    private final Path root;
+
+    /**
+     * Java file of a path.
+     */
+    private final Function<Path, JavaFile> javas;
+
+    /**
+     * How files are moved.
+     */
+    private final Transfer transfer;
+
+    /**
+     * Debounce interval in nanoseconds.
+     */
+    private final long debounce;
+
+    /**
+     * Listener of completed moves.
+     */
+    private final BiConsumer<Path, Path> listener;
+
+    /**
+     * Stream for warnings.
+     */
+    private final PrintStream warnings;
+
+    /**
+     * Which files are watched.
+     */
+    private final Filter filter;
+
+    /**
+     * Filter rules of watched directories.
+     */
+    private final Map<Path, Filter.Scope> scopes = new HashMap<>();
+
+    /**
+     * Watched directories.
+     */
+    private final Map<WatchKey, Path> dirs = new HashMap<>();
+
+    /**
+     * Files waiting for the end of their debounce interval, by deadline.
+     */
+    private final Map<Path, Long> pending = new LinkedHashMap<>();
+
+    /**
+     * Ctor.
+     *
+     * @param src Source root.
+     * @param java Java file of a path.
+     * @param how How files are moved.
+     * @param millis Debounce interval in milliseconds.
+     * @param moved Listener of completed moves.
+     * @param stream Stream for warnings.
+     * @param only Filter of files and directories.
+     */
+    public Watch(final Path src, final Function<Path, JavaFile> java,
+        final Transfer how, final long millis,
+        final BiConsumer<Path, Path> moved, final PrintStream stream,
+        final Filter only) {
+        this.root = src;
+        this.javas = java;
+        this.transfer = how;
+        this.debounce = TimeUnit.MILLISECONDS.toNanos(millis);
+        this.listener = moved;
+        this.warnings = stream;
+        this.filter = only;
+    }
+
+    /**
+     * Watch the tree until the thread is interrupted.
+     *
+     * @throws IOException If watching fails.
+     * @throws InterruptedException If interrupted.
+     */
+    public void run() throws IOException, InterruptedException {
+        try (WatchService service =
+            this.root.getFileSystem().newWatchService()) {
+            this.register(service, this.root, false);
+            while (true) {
+                WatchKey key;
+                if (this.pending.isEmpty()) {
+                    key = service.take();
+                } else {
+                    final long wait = this.pending.values().iterator().next()
+                        - System.nanoTime();
+                    key = service.poll(
+                        Math.max(0, wait), TimeUnit.NANOSECONDS
+                    );
+                }
+                while (key != null) {
+                    this.handle(service, key);
+                    key = service.poll();
+                }
+                this.flush();
+            }
+        }
+    }
+
+    /**
+     * Process events of a directory.
+     *
+     * @param service Watch service.
+     * @param key Key with events.
+     * @throws IOException If registering new directories fails.
+     */
+    private void handle(final WatchService service, final WatchKey key)
+        throws IOException {
+        final Path dir = this.dirs.get(key);
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                this.register(service, this.root, true);
+            } else if (dir != null) {
+                final Path child = dir.resolve((Path) event.context());
+                if (Files.isDirectory(child)) {
+                    this.subtree(service, child);
+                } else {
+                    this.touch(child);
+                }
+            }
+        }
+        if (!key.reset()) {
+            this.scopes.remove(this.dirs.remove(key));
+        }
+    }
+
+    /**
+     * Watch a new directory, tolerating it vanishing meanwhile.
+     *
+     * @param service Watch service.
+     * @param dir New directory.
+     */
+    private void subtree(final WatchService service, final Path dir) {
+        try {
+            this.register(service, dir, true);
+        } catch (final IOException ex) {
+            this.warnings.println(
+                "Warning: Could not watch " + dir + ": " + ex
+            );
+        }
+    }
+
+    /**
+     * Watch a directory and all directories inside.
+     *
+     * @param service Watch service.
+     * @param start Directory to register.
+     * @param existing Whether to pick up Java files already there.
+     * @throws IOException If registering fails.
+     */
+    private void register(final WatchService service, final Path start,
+        final boolean existing) throws IOException {
+        Files.walkFileTree(
+            start,
+            new SimpleFileVisitor<>() {
+                @Override
+                public FileVisitResult preVisitDirectory(final Path dir,
+                    final BasicFileAttributes attrs) throws IOException {
+                    final Filter.Scope outer;
+                    if (dir.equals(Watch.this.root)) {
+                        outer = Watch.this.filter.top(dir);
+                    } else {
+                        outer = Watch.this.scopes.get(dir.getParent());
+                        if (!Watch.this.filter.walks(outer, dir)) {
+                            return FileVisitResult.SKIP_SUBTREE;
+                        }
+                    }
+                    Watch.this.scopes.put(
+                        dir, Watch.this.filter.enter(outer, dir)
+                    );
+                    Watch.this.dirs.put(
+                        dir.register(
+                            service,
+                            StandardWatchEventKinds.ENTRY_CREATE,
+                            StandardWatchEventKinds.ENTRY_MODIFY
+                        ),
+                        dir
+                    );
+                    return FileVisitResult.CONTINUE;
+                }
+
+                @Override
+                public FileVisitResult visitFile(final Path file,
+                    final BasicFileAttributes attrs) {
+                    if (existing) {
+                        Watch.this.touch(file);
+                    }
+                    return FileVisitResult.CONTINUE;
+                }
+            }
+        );
+    }
+
+    /**
+     * Start or restart the debounce interval of a file.
+     *
+     * @param file File an event came for.
+     */
+    private void touch(final Path file) {
+        if (file.getFileName().toString().endsWith(".java")
+            && this.filter.accepts(this.scopes.get(file.getParent()), file)) {
+            this.pending.remove(file);
+            this.pending.put(file, System.nanoTime() + this.debounce);
+        }
+    }
+
+    /**
+     * Place files whose debounce interval is over.
+     */
+    private void flush() {
+        final long now = System.nanoTime();
+        final Iterator<Map.Entry<Path, Long>> iter =
+            this.pending.entrySet().iterator();
+        while (iter.hasNext()) {
+            final Map.Entry<Path, Long> entry = iter.next();
+            if (entry.getValue() - now > 0) {
+                break;
+            }
+            iter.remove();
+            this.place(entry.getKey());
+        }
+    }
+
+    /**
+     * Move a file into its package directory, unless it is there already.
+     *
+     * @param file Java file.
+     */
+    private void place(final Path file) {
+        if (!Files.isRegularFile(file)) {
+            return;
+        }
+        try {
+            final Path dest = this.root
+                .resolve(this.javas.apply(file).pkg().asPath())
+                .resolve(file.getFileName());
+            if (!dest.equals(file)) {
+                Files.createDirectories(dest.getParent());
+                this.transfer.apply(file, dest);
+                this.listener.accept(file, dest);
+            }
+        } catch (final IOException | RuntimeException ex) {
+            this.warnings.println(
+                "Warning: Could not place " + file + ": " + ex
+            );
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package org.sctt.tools.jpfy;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs per-file tasks either inline or on a pool, with a cap on the
+ * number of tasks in flight (and hence on files open at once).
+ */
+public final class Workers implements AutoCloseable {
+
+    /**
+     * Pool of threads, null when tasks run inline.
+     */
+    private final ExecutorService pool;
+
+    /**
+     * Permits for tasks in flight.
+     */
+    private final Semaphore inflight;
+
+    /**
+     * First failure reported by a task.
+     */
+    private final AtomicReference<RuntimeException> failure =
+        new AtomicReference<>();
+
+    /**
+     * Ctor.
+     *
+     * @param threads Number of threads: 1 runs tasks in the calling
+     *  thread, 0 starts a virtual thread per task.
+     * @param limit Maximum number of tasks in flight.
+     */
+    public Workers(final int threads, final int limit) {
+        if (threads < 0) {
+            throw new IllegalArgumentException(
+                "Number of threads must not be negative"
+            );
+        }
+        if (limit < 1) {
+            throw new IllegalArgumentException(
+                "Limit of tasks in flight must be positive"
+            );
+        }
+        if (threads == 1) {
+            this.pool = null;
+        } else if (threads == 0) {
+            this.pool = Executors.newVirtualThreadPerTaskExecutor();
+        } else {
+            this.pool = Executors.newFixedThreadPool(threads);
+        }
+        this.inflight = new Semaphore(limit);
+    }
+
+    /**
+     * Schedule a task, blocking while too many tasks are in flight.
+     *
+     * @param task Task to run.
+     */
+    public void submit(final Runnable task) {
+        if (this.pool == null) {
+            task.run();
+            return;
+        }
+        this.rethrow();
+        this.inflight.acquireUninterruptibly();
+        this.pool.execute(
+            () -> {
+                try {
+                    task.run();
+                } catch (final RuntimeException ex) {
+                    this.failure.compareAndSet(null, ex);
+                } finally {
+                    this.inflight.release();
+                }
+            }
+        );
+    }
+
+    /**
+     * Wait for all submitted tasks to complete.
+     */
+    public void await() {
+        if (this.pool != null) {
+            this.pool.close();
+        }
+        this.rethrow();
+    }
+
+    @Override
+    public void close() {
+        if (this.pool != null) {
+            this.pool.shutdownNow();
+            this.pool.close();
+        }
+    }
+
+    /**
+     * Rethrow the first failure of a task, if any.
+     */
+    private void rethrow() {
+        final RuntimeException ex = this.failure.get();
+        if (ex != null) {
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Allocation budgets of the per-file hot path.
+ *
+ * <p>Bytes allocated by the current thread are read from
+ * {@link com.sun.management.ThreadMXBean}, so everything measured runs
+ * serially. Each budget is checked against the best of a few rounds after
+ * warming up, which leaves out class loading and JIT noise. Budgets are
+ * about twice what was measured when they were set, so they catch
+ * regressions in kind (a copy of the file, a string per line) rather
+ * than a few bytes more.
+ */
+@DisplayName("Allocation budget tests")
+class AllocationTest {
+
+    private static final int FILES = 2000;
+
+    private static final int WARMUP = 3;
+
+    private static final int ROUNDS = 3;
+
+    @TempDir
+    static Path dir;
+
+    private static final Corpus CORPUS = new Corpus()
+        .files(FILES).nested(2, 50).packages(200, 8).noise(0.3, 0.1, 0.1);
+
+    private static final List<Path> FILES_LIST = new ArrayList<>();
+
+    private static com.sun.management.ThreadMXBean threads;
+
+    @BeforeAll
+    static void setUp() throws IOException {
+        threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        CORPUS.write(dir);
+        for (int idx = 0; idx < FILES; ++idx) {
+            FILES_LIST.add(CORPUS.file(dir, idx));
+        }
+    }
+
+    @Test
+    @DisplayName("Should extract a package within 1 KiB per file")
+    void shouldExtractPackagesWithinBudget() throws IOException {
+        // given
+        Buffers buffers = new Buffers(8192);
+
+        // when
+        long perFile = perFile(
+            () -> {
+                for (Path file : FILES_LIST) {
+                    new PrefixJavaFile(file, buffers).pkg();
+                }
+            }
+        );
+
+        // then
+        assertWithin(1024, perFile, "package extraction");
+    }
+
+    @Test
+    @DisplayName("Should extract a package and plan its move within 2 KiB per file")
+    void shouldPlanWithinBudget() throws IOException {
+        // given
+        Buffers buffers = new Buffers(8192);
+
+        // when
+        long perFile = perFile(
+            () -> {
+                Packages packages = new Packages(dir);
+                Plan plan = new Plan();
+                for (Path file : FILES_LIST) {
+                    plan.put(
+                        file,
+                        packages.dir(new PrefixJavaFile(file, buffers).pkg())
+                            .resolve(file.getFileName().toString())
+                    );
+                }
+            }
+        );
+
+        // then
+        assertWithin(2048, perFile, "plan building");
+    }
+
+    @Test
+    @DisplayName("Should walk, extract and plan within 4 KiB per file")
+    void shouldRunPlannerWithinBudget() throws IOException {
+        // given
+        Projectify planner = new Projectify(List.of(dir)).threads(1);
+
+        // when
+        long perFile = perFile(planner::plan);
+
+        // then
+        assertWithin(4096, perFile, "serial planner");
+    }
+
+    /**
+     * Fewest bytes allocated per file by the work over a few rounds.
+     */
+    private static long perFile(Work work) throws IOException {
+        assumeTrue(
+            threads.isThreadAllocatedMemorySupported(),
+            "Thread allocation counters are not supported"
+        );
+        threads.setThreadAllocatedMemoryEnabled(true);
+        for (int round = 0; round < WARMUP; ++round) {
+            work.run();
+        }
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; ++round) {
+            long start = threads.getCurrentThreadAllocatedBytes();
+            work.run();
+            best = Math.min(best, threads.getCurrentThreadAllocatedBytes() - start);
+        }
+        return best / FILES;
+    }
+
+    private static void assertWithin(long budget, long actual, String what) {
+        assertTrue(
+            actual <= budget,
+            String.format("%s allocates %d bytes per file, budget is %d", what, actual, budget)
+        );
+    }
+
+    /**
+     * Work whose allocations are measured.
+     */
+    private interface Work {
+        void run() throws IOException;
+    }
+}
@@ -4,15 +4,27 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 import picocli.CommandLine;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
@@ -192,12 +204,10 @@ class AppTest {
         @DisplayName("Should place resource files in correct package directory")
         void shouldPlaceResourceFilesInCorrectPackage(@TempDir Path tempDir) throws IOException {
             // given
-            Files.writeString(tempDir.resolve("service/UserService.java"), "package service;\
-import model.User;\
-\
-public class UserService {};");
-            Files.writeString(tempDir.resolve("service/UserService.properties"), "timeout=30");
-            Files.writeString(tempDir.resolve("service/logback.xml"), "<configuration></configuration>");
+            Files.createDirectories(tempDir.resolve("misc"));
+            Files.writeString(tempDir.resolve("misc/UserService.java"), "package service;\nimport model.User;\n\npublic class UserService {};");
+            Files.writeString(tempDir.resolve("misc/UserService.properties"), "timeout=30");
+            Files.writeString(tempDir.resolve("misc/logback.xml"), "<configuration></configuration>");
 
             String[] args = {"--copy-resources", tempDir.toString()};
             ByteArrayOutputStream output = captureSystemOut();
@@ -212,6 +222,701 @@ public class UserService {};");
             assertTrue(captured.contains("service/logback.xml"), "Should process xml file in service package");
             restoreSystemOut();
         }
+
+        @Test
+        @DisplayName("Should leave out files already in their package directory")
+        void shouldLeaveOutFilesInPlace(@TempDir Path tempDir) throws IOException {
+            // given
+            Files.createDirectories(tempDir.resolve("org/a"));
+            Files.writeString(tempDir.resolve("org/a/A.java"), "package org.a;");
+            Files.writeString(tempDir.resolve("org/a/A.properties"), "key=value");
+            Files.writeString(tempDir.resolve("B.java"), "package org.a;");
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            App app = new App(new PrintStream(output, true), new PrintStream(errors, true), null);
+
+            // when
+            int exitCode = new CommandLine(app).execute("--copy-resources", "--apply", tempDir.toString());
+
+            // then
+            assertEquals(0, exitCode);
+            assertEquals(
+                tempDir.resolve("B.java") + "=" + tempDir.resolve("org/a/B.java"),
+                output.toString().strip()
+            );
+            assertTrue(errors.toString().contains("2 files already in place"));
+            assertTrue(errors.toString().contains("1 of 1 files in place, 0 failed"));
+        }
+
+        @Test
+        @DisplayName("Should copy files already in place without counting them as left out")
+        void shouldCopyFilesInPlace(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = Files.createDirectories(tempDir.resolve("tree/org/a"));
+            Files.writeString(tree.resolve("A.java"), "package org.a;");
+            Path out = tempDir.resolve("out");
+            ByteArrayOutputStream errors = new ByteArrayOutputStream();
+            App app = new App(new PrintStream(new ByteArrayOutputStream(), true), new PrintStream(errors, true), null);
+
+            // when
+            int exitCode = new CommandLine(app).execute(
+                "--copy", "--out", out.toString(), tempDir.resolve("tree").toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(Files.exists(out.resolve("org/a/A.java")));
+            assertFalse(errors.toString().contains("already in place"));
+        }
+
+        @Test
+        @DisplayName("Should place resource file into package of its directory")
+        void shouldPlaceResourceIntoPackageOfDirectory(@TempDir Path tempDir) throws IOException {
+            // given
+            Files.createDirectories(tempDir.resolve("web"));
+            Files.createDirectories(tempDir.resolve("other"));
+            Files.writeString(tempDir.resolve("web/Servlet.java"), "package org.web;");
+            Files.writeString(tempDir.resolve("web/logo.png"), "png");
+            Files.writeString(tempDir.resolve("other/Other.java"), "package org.other;");
+
+            String[] args = {"--copy-resources", "--threads", "2", tempDir.toString()};
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            new CommandLine(new App()).execute(args);
+            String captured = getCapturedOutput(output);
+
+            // then
+            assertTrue(captured.contains("web/logo.png=" + tempDir.resolve("org/web/logo.png")),
+                    "Should place resource into package of its directory");
+            restoreSystemOut();
+        }
+    }
+
+    @Nested
+    @DisplayName("Parallel extraction tests")
+    class ParallelTests {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"0", "4"})
+        @DisplayName("Should produce same output as serial run")
+        void shouldProduceSameOutputAsSerialRun(String threads, @TempDir Path tempDir) throws IOException {
+            // given
+            for (int i = 0; i < 50; i++) {
+                Files.writeString(tempDir.resolve("C" + i + ".java"), "package p" + (i % 7) + ";");
+            }
+            ByteArrayOutputStream serial = captureSystemOut();
+            new CommandLine(new App()).execute(tempDir.toString());
+            ByteArrayOutputStream parallel = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--threads", threads, "--max-open-files", "3", tempDir.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertEquals(getCapturedOutput(serial), getCapturedOutput(parallel));
+            restoreSystemOut();
+        }
+    }
+
+    @Nested
+    @DisplayName("Multiple roots tests")
+    class MultipleRootsTests {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"1", "0"})
+        @DisplayName("Should place files of each root under that root")
+        void shouldPlaceFilesUnderTheirRoot(String threads, @TempDir Path tempDir) throws IOException {
+            // given
+            Path first = Files.createDirectories(tempDir.resolve("first"));
+            Path second = Files.createDirectories(tempDir.resolve("second"));
+            Files.writeString(first.resolve("A.java"), "package org.a;");
+            Files.writeString(second.resolve("B.java"), "package org.b;");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--threads", threads, first.toString(), second.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertEquals(
+                first.resolve("A.java") + "=" + first.resolve("org/a/A.java") + "\n"
+                    + second.resolve("B.java") + "=" + second.resolve("org/b/B.java") + "\n",
+                getCapturedOutput(output)
+            );
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should merge roots into one output folder when copying")
+        void shouldMergeRootsWhenCopying(@TempDir Path tempDir) throws IOException {
+            // given
+            Path first = Files.createDirectories(tempDir.resolve("first"));
+            Path second = Files.createDirectories(tempDir.resolve("second"));
+            Path out = tempDir.resolve("out");
+            Files.writeString(first.resolve("A.java"), "package org.a;");
+            Files.writeString(second.resolve("B.java"), "package org.a;");
+            captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--copy", "--out", out.toString(), first.toString(), second.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(Files.exists(out.resolve("org/a/A.java")));
+            assertTrue(Files.exists(out.resolve("org/a/B.java")));
+            restoreSystemOut();
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"a", "a/b", "a/b/../../a", "./a/"})
+        @DisplayName("Should reject source folders which overlap")
+        void shouldRejectOverlappingRoots(String second, @TempDir Path tempDir) throws IOException {
+            // given
+            Path nested = Files.createDirectories(tempDir.resolve("a/b"));
+            Files.writeString(nested.resolve("B.java"), "package x;");
+            StringWriter err = new StringWriter();
+            CommandLine cli = new CommandLine(new App());
+            cli.setErr(new PrintWriter(err));
+
+            // when
+            int exitCode = cli.execute(
+                "--stream", tempDir.resolve("a").toString(), tempDir.resolve(second).toString()
+            );
+
+            // then
+            assertEquals(2, exitCode);
+            assertTrue(err.toString().contains("Source folders overlap"));
+            assertTrue(Files.exists(nested.resolve("B.java")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Filter tests")
+    class FilterTests {
+
+        @Test
+        @DisplayName("Should skip excluded and ignored files")
+        void shouldSkipFilteredFiles(@TempDir Path tempDir) throws IOException {
+            // given
+            Files.writeString(tempDir.resolve(".gitignore"), "generated/\n");
+            Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+            Files.createDirectories(tempDir.resolve("generated"));
+            Files.writeString(tempDir.resolve("generated/B.java"), "package org.b;");
+            Files.createDirectories(tempDir.resolve("target"));
+            Files.writeString(tempDir.resolve("target/C.java"), "package org.c;");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--gitignore", "--exclude", "target", tempDir.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertEquals(
+                tempDir.resolve("A.java") + "=" + tempDir.resolve("org/a/A.java"),
+                getCapturedOutput(output).strip()
+            );
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should reject invalid globs")
+        void shouldRejectInvalidGlobs(@TempDir Path tempDir) {
+            // given
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute("--include", "[a", tempDir.toString());
+
+            // then
+            assertEquals(2, exitCode);
+            restoreSystemOut();
+        }
+    }
+
+    @Nested
+    @DisplayName("Output format tests")
+    class OutputFormatTests {
+
+        @Test
+        @DisplayName("Should stream moves in JSON lines")
+        void shouldStreamJsonLines(@TempDir Path tempDir) throws IOException {
+            // given
+            Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+            Files.writeString(tempDir.resolve("B.java"), "package org.b;");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--stream", "--format=jsonl", "--threads", "2", tempDir.toString()
+            );
+            String captured = getCapturedOutput(output);
+
+            // then
+            assertEquals(0, exitCode);
+            assertEquals(2, captured.lines().count());
+            assertTrue(captured.lines().allMatch(l -> l.startsWith("{\"source\":")));
+            assertTrue(captured.contains(tempDir.resolve("org/b/B.java").toString()));
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should print plan as tab separated values")
+        void shouldPrintTsv(@TempDir Path tempDir) throws IOException {
+            // given
+            Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            new CommandLine(new App()).execute("--format", "tsv", tempDir.toString());
+
+            // then
+            assertEquals(
+                tempDir.resolve("A.java") + "\t" + tempDir.resolve("org/a/A.java") + "\n",
+                getCapturedOutput(output)
+            );
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should reject unknown format")
+        void shouldRejectUnknownFormat(@TempDir Path tempDir) {
+            assertEquals(2, new CommandLine(new App()).execute("--format", "xml", tempDir.toString()));
+        }
+    }
+
+    @Nested
+    @DisplayName("Archive tests")
+    class ArchiveTests {
+
+        @Test
+        @DisplayName("Should plan moves of sources inside archive")
+        void shouldPlanMovesInArchive(@TempDir Path tempDir) throws IOException {
+            // given
+            Path jar = zip(tempDir.resolve("lib-sources.jar"));
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute("--threads", "2", jar.toString());
+            String captured = getCapturedOutput(output);
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(captured.contains("/flat/A.java=/org/a/A.java"), captured);
+            assertTrue(captured.contains("/flat/B.java=/org/b/B.java"), captured);
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should extract archive into package directories")
+        void shouldCopyFromArchive(@TempDir Path tempDir) throws IOException {
+            // given
+            Path jar = zip(tempDir.resolve("lib-sources.jar"));
+            Path out = tempDir.resolve("out");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--copy", "--out", out.toString(), jar.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(Files.readString(out.resolve("org/a/A.java")).startsWith("package org.a;"));
+            assertTrue(Files.exists(out.resolve("org/b/B.java")));
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should refuse to move files inside archive")
+        void shouldRejectApplyOnArchive(@TempDir Path tempDir) throws IOException {
+            // given
+            Path jar = zip(tempDir.resolve("lib-sources.jar"));
+
+            // when
+            int exitCode = new CommandLine(new App()).execute("--apply", jar.toString());
+
+            // then
+            assertEquals(2, exitCode);
+        }
+
+        @Test
+        @DisplayName("Should report a source file which is no archive as usage error")
+        void shouldRejectFileWhichIsNoArchive(@TempDir Path tempDir) throws IOException {
+            // given
+            Path file = Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+            StringWriter err = new StringWriter();
+            CommandLine cli = new CommandLine(new App());
+            cli.setErr(new PrintWriter(err));
+
+            // when
+            int exitCode = cli.execute(file.toString());
+
+            // then
+            assertEquals(2, exitCode);
+            assertTrue(err.toString().contains("Not a zip or jar archive: " + file));
+        }
+
+        private Path zip(Path file) throws IOException {
+            try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(file))) {
+                zip.putNextEntry(new ZipEntry("flat/A.java"));
+                zip.write(("package org.a;\n" + "//".repeat(10_000)).getBytes(StandardCharsets.UTF_8));
+                zip.putNextEntry(new ZipEntry("flat/B.java"));
+                zip.write("package org.b;".getBytes(StandardCharsets.UTF_8));
+            }
+            return file;
+        }
+    }
+
+    @Nested
+    @DisplayName("Cache tests")
+    class CacheTests {
+
+        @Test
+        @DisplayName("Should produce same output with cache on rerun")
+        void shouldProduceSameOutputWithCache(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = Files.createDirectories(tempDir.resolve("tree"));
+            Files.writeString(tree.resolve("A.java"), "package org.a;");
+            Files.writeString(tree.resolve("B.java"), "package org.b;");
+            String cache = tempDir.resolve("jpfy.cache").toString();
+            ByteArrayOutputStream first = captureSystemOut();
+            new CommandLine(new App()).execute("--cache", cache, tree.toString());
+            ByteArrayOutputStream second = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute("--cache", cache, tree.toString());
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(Files.exists(tempDir.resolve("jpfy.cache")), "Cache file should be written");
+            assertEquals(getCapturedOutput(first), getCapturedOutput(second));
+            restoreSystemOut();
+        }
+    }
+
+    @Nested
+    @DisplayName("Stats tests")
+    class StatsTests {
+
+        @Test
+        @DisplayName("Should write counters of the run in JSON")
+        void shouldWriteStatsJson(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = Files.createDirectories(tempDir.resolve("tree"));
+            Files.writeString(tree.resolve("A.java"), "package org.a;");
+            Files.writeString(tree.resolve("B.java"), "package org.b;");
+            Files.writeString(tree.resolve("A.txt"), "text");
+            Path json = tempDir.resolve("stats.json");
+            captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--copy-resources", "--threads", "2", "--stats-json", json.toString(), tree.toString()
+            );
+            String stats = Files.readString(json);
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(stats.contains("\"javaFiles\":2,\"parsed\":2,\"cacheHits\":0,\"resources\":1"), stats);
+            assertTrue(stats.contains("\"bytesRead\":28"), stats);
+            assertTrue(stats.contains("\"scan\":"), stats);
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should count packages taken from cache")
+        void shouldCountCacheHits(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = Files.createDirectories(tempDir.resolve("tree"));
+            Files.writeString(tree.resolve("A.java"), "package org.a;");
+            String cache = tempDir.resolve("jpfy.cache").toString();
+            Path json = tempDir.resolve("stats.json");
+            captureSystemOut();
+            new CommandLine(new App()).execute("--cache", cache, tree.toString());
+
+            // when
+            new CommandLine(new App()).execute(
+                "--cache", cache, "--stats-json", json.toString(), tree.toString()
+            );
+
+            // then
+            assertTrue(Files.readString(json).contains("\"parsed\":0,\"cacheHits\":1"));
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should reject stats in watch mode")
+        void shouldRejectStatsWithWatch(@TempDir Path tempDir) {
+            assertEquals(2, new CommandLine(new App()).execute("--watch", "--stats", tempDir.toString()));
+        }
+
+        @Test
+        @DisplayName("Should reject cache in watch mode")
+        void shouldRejectCacheWithWatch(@TempDir Path tempDir) {
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--watch", "--cache", tempDir.resolve("jpfy.cache").toString(), tempDir.toString()
+            );
+
+            // then
+            assertEquals(2, exitCode);
+            assertFalse(Files.exists(tempDir.resolve("jpfy.cache")));
+        }
+    }
+
+    @Nested
+    @DisplayName("Flight recorder tests")
+    class FlightRecorderTests {
+
+        @Test
+        @DisplayName("Should emit parse, walk and transfer events")
+        void shouldEmitEvents(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = Files.createDirectories(tempDir.resolve("tree"));
+            Files.writeString(tree.resolve("A.java"), "package org.a;");
+            Path dump = tempDir.resolve("run.jfr");
+            captureSystemOut();
+
+            // when
+            try (Recording recording = new Recording()) {
+                recording.enable("org.sctt.jpfy.Parse");
+                recording.enable("org.sctt.jpfy.Walk");
+                recording.enable("org.sctt.jpfy.Transfer");
+                recording.start();
+                new CommandLine(new App()).execute(
+                    "--copy", "--out", tempDir.resolve("out").toString(), tree.toString()
+                );
+                recording.stop();
+                recording.dump(dump);
+            }
+            List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+
+            // then
+            RecordedEvent parse = event(events, "org.sctt.jpfy.Parse");
+            assertEquals("org.a", parse.getString("pkg"));
+            assertEquals(14, parse.getLong("bytes"));
+            assertEquals(1, event(events, "org.sctt.jpfy.Walk").getLong("files"));
+            RecordedEvent transfer = event(events, "org.sctt.jpfy.Transfer");
+            assertEquals("copy", transfer.getString("operation"));
+            assertEquals(14, transfer.getLong("size"));
+            restoreSystemOut();
+        }
+
+        private RecordedEvent event(List<RecordedEvent> events, String name) {
+            return events.stream()
+                .filter(e -> e.getEventType().getName().equals(name))
+                .findFirst()
+                .orElseThrow();
+        }
+    }
+
+    @Nested
+    @DisplayName("Apply tests")
+    class ApplyTests {
+
+        @Test
+        @DisplayName("Should move files into package directories")
+        void shouldMoveFilesIntoPackages(@TempDir Path tempDir) throws IOException {
+            // given
+            Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+            Files.writeString(tempDir.resolve("B.java"), "package org.b;");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute("--apply", tempDir.toString());
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(Files.exists(tempDir.resolve("org/a/A.java")));
+            assertTrue(Files.exists(tempDir.resolve("org/b/B.java")));
+            assertFalse(Files.exists(tempDir.resolve("A.java")));
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should copy files into package directories under output folder")
+        void shouldCopyFilesToOutputFolder(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = Files.createDirectories(tempDir.resolve("tree"));
+            Path out = tempDir.resolve("out");
+            Files.writeString(tree.resolve("A.java"), "package org.a;");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--copy", "--out", out.toString(), "--threads", "2", tree.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertEquals("package org.a;", Files.readString(out.resolve("org/a/A.java")));
+            assertTrue(Files.exists(tree.resolve("A.java")), "Source should stay in place");
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should copy files as they are found with --stream")
+        void shouldCopyWhileScanning(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = tempDir.resolve("tree");
+            Path out = tempDir.resolve("out");
+            Corpus corpus = new Corpus().files(400).nested(2, 10).packages(20, 4);
+            corpus.write(tree);
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--stream", "--copy", "--out", out.toString(), "--threads", "0",
+                "--walkers", "2", "--movers", "3", "--queue", "4", tree.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertEquals(400, getCapturedOutput(output).lines().count());
+            for (int idx = 0; idx < 400; idx += 13) {
+                assertTrue(Files.exists(
+                    out.resolve(corpus.pkg(idx).replace('.', '/')).resolve("C" + idx + ".java")
+                ));
+            }
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should refuse to stream moves within the tree")
+        void shouldRefuseStreamedApply(@TempDir Path tempDir) throws IOException {
+            // given
+            Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--stream", "--apply", tempDir.toString()
+            );
+
+            // then
+            assertEquals(2, exitCode);
+            assertTrue(Files.exists(tempDir.resolve("A.java")));
+            restoreSystemOut();
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"--apply", "--copy"})
+        @DisplayName("Should apply a plan spilled to disk")
+        void shouldApplySpilledPlan(String mode, @TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = tempDir.resolve("tree");
+            Path out = tempDir.resolve("out");
+            Corpus corpus = new Corpus().files(300).nested(2, 10).packages(20, 4);
+            corpus.write(tree);
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                mode, "--out", out.toString(), "--spill", tempDir.resolve("runs").toString(),
+                "--spill-size", "16", "--threads", "4", tree.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertEquals(300, getCapturedOutput(output).lines().count());
+            Path base = "--copy".equals(mode) ? out : tree;
+            for (int idx = 0; idx < 300; idx += 11) {
+                assertTrue(Files.exists(
+                    base.resolve(corpus.pkg(idx).replace('.', '/')).resolve("C" + idx + ".java")
+                ));
+            }
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should refuse to spill a plan with resources")
+        void shouldRefuseSpilledResources(@TempDir Path tempDir) throws IOException {
+            // given
+            Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+            Files.writeString(tempDir.resolve("A.properties"), "key=value");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--copy", "--copy-resources", "--out", tempDir.resolve("out").toString(),
+                "--spill", tempDir.resolve("runs").toString(), tempDir.toString()
+            );
+
+            // then
+            assertEquals(2, exitCode);
+            assertFalse(Files.exists(tempDir.resolve("out")));
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should hard link copies of identical files with --dedup")
+        void shouldLinkDuplicateCopies(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = Files.createDirectories(tempDir.resolve("tree"));
+            Path out = tempDir.resolve("out");
+            Files.createDirectories(tree.resolve("x"));
+            Files.writeString(tree.resolve("A.java"), "package org.a;");
+            Files.writeString(tree.resolve("x/A.java"), "package org.b;");
+            Files.writeString(tree.resolve("x/B.java"), "package org.b;");
+            ByteArrayOutputStream output = captureSystemOut();
+
+            // when
+            int exitCode = new CommandLine(new App()).execute(
+                "--copy", "--dedup", "--out", out.toString(), "--threads", "2", tree.toString()
+            );
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(Files.isSameFile(out.resolve("org/b/A.java"), out.resolve("org/b/B.java")));
+            assertFalse(Files.isSameFile(out.resolve("org/a/A.java"), out.resolve("org/b/A.java")));
+            assertEquals("package org.b;", Files.readString(out.resolve("org/b/B.java")));
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should reject --dedup without --copy")
+        void shouldRejectDedupWithoutCopy(@TempDir Path tempDir) {
+            assertEquals(2, new CommandLine(new App()).execute("--dedup", tempDir.toString()));
+        }
+
+        @Test
+        @DisplayName("Should roll back moves recorded in journal")
+        void shouldRollBackMoves(@TempDir Path tempDir) throws IOException {
+            // given
+            Path tree = Files.createDirectories(tempDir.resolve("tree"));
+            Files.writeString(tree.resolve("A.java"), "package org.a;");
+            String journal = tempDir.resolve("jpfy.journal").toString();
+            ByteArrayOutputStream output = captureSystemOut();
+            new CommandLine(new App()).execute("--apply", "--journal", journal, tree.toString());
+
+            // when
+            int exitCode = new CommandLine(new App()).execute("--rollback", "--journal", journal);
+
+            // then
+            assertEquals(0, exitCode);
+            assertTrue(Files.exists(tree.resolve("A.java")));
+            assertFalse(Files.exists(tree.resolve("org")));
+            restoreSystemOut();
+        }
+
+        @Test
+        @DisplayName("Should reject copy without output folder")
+        void shouldRejectCopyWithoutOutputFolder(@TempDir Path tempDir) {
+            // when
+            int exitCode = new CommandLine(new App()).execute("--copy", tempDir.toString());
+
+            // then
+            assertEquals(2, exitCode);
+        }
     }
 
     @Nested
@@ -0,0 +1,93 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Batch} with {@link MoveTransfer}.
+ */
+@DisplayName("Batch tests")
+class BatchTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 4})
+    @DisplayName("Should move files into created directories")
+    void shouldMoveFiles(int threads, @TempDir Path tempDir) throws IOException {
+        // given
+        Plan plan = new Plan();
+        for (int i = 0; i < 20; i++) {
+            Path file = tempDir.resolve("F" + i + ".java");
+            Files.writeString(file, "content " + i);
+            plan.put(file, tempDir.resolve("org/p" + (i % 3)).resolve(file.getFileName()));
+        }
+
+        // when
+        Map<Path, IOException> failures = new Batch(new MoveTransfer(), threads, 2).apply(plan);
+
+        // then
+        assertTrue(failures.isEmpty());
+        for (int i = 0; i < 20; i++) {
+            Path moved = tempDir.resolve("org/p" + (i % 3)).resolve("F" + i + ".java");
+            assertEquals("content " + i, Files.readString(moved));
+            assertFalse(Files.exists(tempDir.resolve("F" + i + ".java")));
+        }
+    }
+
+    @Test
+    @DisplayName("Should report failures without aborting the batch")
+    void shouldReportFailures(@TempDir Path tempDir) throws IOException {
+        // given
+        Path first = Files.createDirectories(tempDir.resolve("a")).resolve("Same.java");
+        Path second = Files.createDirectories(tempDir.resolve("b")).resolve("Same.java");
+        Path other = tempDir.resolve("Other.java");
+        Files.writeString(first, "first");
+        Files.writeString(second, "second");
+        Files.writeString(other, "other");
+        Plan plan = new Plan();
+        plan.put(first, tempDir.resolve("org/Same.java"));
+        plan.put(second, tempDir.resolve("org/Same.java"));
+        plan.put(other, tempDir.resolve("org/Other.java"));
+        plan.put(tempDir.resolve("Missing.java"), tempDir.resolve("org/Missing.java"));
+
+        // when
+        Map<Path, IOException> failures = new Batch(new MoveTransfer(), 1, 1).apply(plan);
+
+        // then
+        assertEquals(2, failures.size());
+        assertInstanceOf(FileAlreadyExistsException.class, failures.get(second));
+        assertEquals("first", Files.readString(tempDir.resolve("org/Same.java")));
+        assertEquals("other", Files.readString(tempDir.resolve("org/Other.java")));
+        assertTrue(Files.exists(second), "Failed file should stay in place");
+    }
+
+    @Test
+    @DisplayName("Should skip files already in place")
+    void shouldSkipFilesInPlace(@TempDir Path tempDir) throws IOException {
+        // given
+        Path file = tempDir.resolve("Placed.java");
+        Files.writeString(file, "placed");
+        Plan plan = new Plan();
+        plan.put(file, file);
+
+        // when
+        Map<Path, IOException> failures = new Batch(new MoveTransfer(), 1, 1).apply(plan);
+
+        // then
+        assertTrue(failures.isEmpty());
+        assertEquals("placed", Files.readString(file));
+    }
+}
@@ -0,0 +1,135 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link Cache} and {@link CachedJavaFile}.
+ */
+@DisplayName("Cache tests")
+class CacheTest {
+
+    @Test
+    @DisplayName("Should reuse package of unchanged file after reload")
+    void shouldReusePackageAfterReload(@TempDir Path tempDir) throws IOException {
+        // given
+        Path javaFile = tempDir.resolve("A.java");
+        Files.writeString(javaFile, "package org.cached;");
+        Path file = tempDir.resolve("jpfy.cache");
+        Cache first = new Cache(file);
+        first.load();
+        new CachedJavaFile(javaFile, first, new PrefixJavaFile(javaFile, new Buffers(64))).pkg();
+        first.save();
+        AtomicInteger parsed = new AtomicInteger();
+        Cache second = new Cache(file);
+
+        // when
+        second.load();
+        Jpkg pkg = new CachedJavaFile(javaFile, second, () -> {
+            parsed.incrementAndGet();
+            return new JpkgImpl("wrong");
+        }).pkg();
+
+        // then
+        assertEquals("org.cached", pkg.name());
+        assertEquals(0, parsed.get());
+    }
+
+    @Test
+    @DisplayName("Should parse file again when it changed")
+    void shouldInvalidateChangedFile(@TempDir Path tempDir) throws IOException {
+        // given
+        Path javaFile = tempDir.resolve("A.java");
+        Files.writeString(javaFile, "package org.old;");
+        Path file = tempDir.resolve("jpfy.cache");
+        Cache first = new Cache(file);
+        new CachedJavaFile(javaFile, first, new PrefixJavaFile(javaFile, new Buffers(64))).pkg();
+        first.save();
+        Files.writeString(javaFile, "package org.renewed;");
+        Files.setLastModifiedTime(javaFile, FileTime.fromMillis(0));
+        Cache second = new Cache(file);
+        second.load();
+
+        // when
+        Jpkg pkg = new CachedJavaFile(javaFile, second, new PrefixJavaFile(javaFile, new Buffers(64))).pkg();
+
+        // then
+        assertEquals("org.renewed", pkg.name());
+    }
+
+    @Test
+    @DisplayName("Should ignore file of unknown format")
+    void shouldIgnoreUnknownFormat(@TempDir Path tempDir) throws IOException {
+        // given
+        Path javaFile = tempDir.resolve("A.java");
+        Files.writeString(javaFile, "package org.fresh;");
+        Path file = tempDir.resolve("jpfy.cache");
+        Files.writeString(file, "not a cache at all");
+        Cache cache = new Cache(file);
+
+        // when
+        cache.load();
+        Jpkg pkg = new CachedJavaFile(javaFile, cache, new PrefixJavaFile(javaFile, new Buffers(64))).pkg();
+
+        // then
+        assertEquals("org.fresh", pkg.name());
+    }
+
+    @Test
+    @DisplayName("Should fail on truncated file")
+    void shouldFailOnTruncatedFile(@TempDir Path tempDir) throws IOException {
+        // given
+        Path file = tempDir.resolve("jpfy.cache");
+        Files.write(file, new byte[] {0x4A, 0x50, 0x46, 0x59, 0, 0, 0, 1, 0, 0});
+
+        // when / then
+        assertThrows(IOException.class, new Cache(file)::load);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {-1, Integer.MAX_VALUE, 1, 7})
+    @DisplayName("Should fail with IOException on garbled counts and indices")
+    void shouldFailOnGarbledBody(int garbage, @TempDir Path tempDir) throws IOException {
+        // given
+        Path file = tempDir.resolve("jpfy.cache");
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(0x4A504659);
+            out.writeInt(1);
+            if (garbage < 0 || garbage == Integer.MAX_VALUE) {
+                out.writeInt(garbage);
+            } else {
+                out.writeInt(1);
+                out.writeUTF("org.a");
+                out.writeInt(1);
+                out.writeUTF("/src/A.java");
+                out.writeLong(10);
+                out.writeLong(20);
+                out.writeInt(garbage);
+            }
+        }
+        Files.write(file, bytes.toByteArray());
+        Cache cache = new Cache(file);
+
+        // when
+        assertThrows(IOException.class, cache::load);
+        Jpkg pkg = cache.pkg("/src/A.java", 10, 20, () -> new JpkgImpl("org.parsed"));
+
+        // then
+        assertEquals("org.parsed", pkg.name());
+    }
+}
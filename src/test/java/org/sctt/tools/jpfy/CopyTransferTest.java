@@ -0,0 +1,92 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link CopyTransfer}.
+ */
+@DisplayName("CopyTransfer tests")
+class CopyTransferTest {
+
+    @Test
+    @DisplayName("Should copy content and keep the source")
+    void shouldCopyContent(@TempDir Path tempDir) throws IOException {
+        // given
+        byte[] content = new byte[3_000_000];
+        new Random(42).nextBytes(content);
+        Path source = tempDir.resolve("Big.java");
+        Files.write(source, content);
+        Path destination = tempDir.resolve("Copy.java");
+
+        // when
+        new CopyTransfer().apply(source, destination);
+
+        // then
+        assertArrayEquals(content, Files.readAllBytes(destination));
+        assertTrue(Files.exists(source));
+    }
+
+    @Test
+    @DisplayName("Should copy empty file")
+    void shouldCopyEmptyFile(@TempDir Path tempDir) throws IOException {
+        // given
+        Path source = tempDir.resolve("Empty.java");
+        Files.createFile(source);
+        Path destination = tempDir.resolve("Copy.java");
+
+        // when
+        new CopyTransfer().apply(source, destination);
+
+        // then
+        assertEquals(0, Files.size(destination));
+    }
+
+    @Test
+    @DisplayName("Should not replace existing file")
+    void shouldNotReplaceExistingFile(@TempDir Path tempDir) throws IOException {
+        // given
+        Path source = tempDir.resolve("A.java");
+        Path destination = tempDir.resolve("B.java");
+        Files.writeString(source, "new");
+        Files.writeString(destination, "old");
+
+        // when / then
+        assertThrows(FileAlreadyExistsException.class, () -> new CopyTransfer().apply(source, destination));
+        assertEquals("old", Files.readString(destination));
+    }
+
+    @Test
+    @DisplayName("Should fail a short copy and leave no partial file behind")
+    void shouldFailShortCopy(@TempDir Path tempDir) throws IOException {
+        // given
+        Path source = tempDir.resolve("A.java");
+        Path destination = tempDir.resolve("B.java");
+        Files.writeString(source, "package a;");
+        long size = Files.size(source);
+
+        // when
+        IOException ex = assertThrows(
+            IOException.class, () -> CopyTransfer.copy(source, destination, size + 100)
+        );
+
+        // then
+        assertTrue(ex.getMessage().contains("Copied " + size + " of " + (size + 100)));
+        assertFalse(Files.exists(destination));
+        new CopyTransfer().apply(source, destination);
+        assertEquals("package a;", Files.readString(destination));
+    }
+}
@@ -0,0 +1,310 @@
+package org.sctt.tools.jpfy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic generator of large source trees for scale tests and
+ * benchmarks.
+ *
+ * <p>Every file is derived from the seed and its index alone, so the same
+ * settings always give the same tree, and the expected package of any file
+ * can be asked for without keeping the tree in memory. Java files are
+ * named {@code C<index>.java}, so their destinations never collide.
+ */
+final class Corpus {
+
+    /**
+     * Byte order mark.
+     */
+    private static final String BOM = "\uFEFF";
+
+    /**
+     * Number of Java files.
+     */
+    private int count = 1000;
+
+    /**
+     * Java files per source directory.
+     */
+    private int per = 100;
+
+    /**
+     * Levels of source directories, zero for a flat tree.
+     */
+    private int depth = 1;
+
+    /**
+     * Number of distinct packages.
+     */
+    private int pkgs = 10;
+
+    /**
+     * Children per directory and per package segment.
+     */
+    private int fanout = 10;
+
+    /**
+     * Share of files with comments and annotations before the package.
+     */
+    private double noise;
+
+    /**
+     * Share of files starting with a byte order mark.
+     */
+    private double bom;
+
+    /**
+     * Share of files with CRLF line endings.
+     */
+    private double crlf;
+
+    /**
+     * Share of Java files with a resource file next to them.
+     */
+    private double resources;
+
+    /**
+     * Share of Java files without a valid package declaration.
+     */
+    private double malformed;
+
+    /**
+     * Seed.
+     */
+    private long seed = 42;
+
+    /**
+     * Set number of Java files.
+     *
+     * @param files Number of Java files.
+     * @return This corpus.
+     */
+    Corpus files(final int files) {
+        this.count = files;
+        return this;
+    }
+
+    /**
+     * Put all files into the root directory.
+     *
+     * @return This corpus.
+     */
+    Corpus flat() {
+        this.depth = 0;
+        return this;
+    }
+
+    /**
+     * Spread files over nested source directories.
+     *
+     * @param levels Levels of directories.
+     * @param files Java files per directory.
+     * @return This corpus.
+     */
+    Corpus nested(final int levels, final int files) {
+        this.depth = levels;
+        this.per = files;
+        return this;
+    }
+
+    /**
+     * Set number of packages and how they branch.
+     *
+     * @param packages Number of distinct packages.
+     * @param children Children per directory and package segment.
+     * @return This corpus.
+     */
+    Corpus packages(final int packages, final int children) {
+        this.pkgs = packages;
+        this.fanout = children;
+        return this;
+    }
+
+    /**
+     * Set share of files with noisy headers.
+     *
+     * @param comments Share with comments and annotations.
+     * @param boms Share with a byte order mark.
+     * @param crlfs Share with CRLF line endings.
+     * @return This corpus.
+     */
+    Corpus noise(final double comments, final double boms,
+        final double crlfs) {
+        this.noise = comments;
+        this.bom = boms;
+        this.crlf = crlfs;
+        return this;
+    }
+
+    /**
+     * Set share of Java files with a resource file next to them.
+     *
+     * @param share Share of Java files.
+     * @return This corpus.
+     */
+    Corpus resources(final double share) {
+        this.resources = share;
+        return this;
+    }
+
+    /**
+     * Set share of malformed Java files.
+     *
+     * @param share Share of Java files.
+     * @return This corpus.
+     */
+    Corpus malformed(final double share) {
+        this.malformed = share;
+        return this;
+    }
+
+    /**
+     * Set seed.
+     *
+     * @param value Seed.
+     * @return This corpus.
+     */
+    Corpus seed(final long value) {
+        this.seed = value;
+        return this;
+    }
+
+    /**
+     * Write the tree.
+     *
+     * @param root Directory to write into.
+     * @return Number of files written, resources included.
+     * @throws IOException If writing fails.
+     */
+    long write(final Path root) throws IOException {
+        long written = 0;
+        Path current = null;
+        for (int idx = 0; idx < this.count; ++idx) {
+            final Path file = this.file(root, idx);
+            if (!file.getParent().equals(current)) {
+                current = file.getParent();
+                Files.createDirectories(current);
+            }
+            final SplittableRandom random = this.random(idx);
+            final String pkg = this.name(random);
+            final boolean broken = random.nextDouble() < this.malformed;
+            Files.write(file, this.content(idx, pkg, broken, random));
+            written += 1;
+            if (random.nextDouble() < this.resources) {
+                Files.writeString(
+                    current.resolve("r" + idx + ".properties"),
+                    "key=" + idx + "\n"
+                );
+                written += 1;
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Path of a Java file.
+     *
+     * @param root Root of the tree.
+     * @param idx Index of the file.
+     * @return Path of the file.
+     */
+    Path file(final Path root, final int idx) {
+        Path dir = root;
+        int num = idx / this.per;
+        for (int level = 0; level < this.depth; ++level) {
+            dir = dir.resolve("d" + num % this.fanout);
+            num /= this.fanout;
+        }
+        return dir.resolve("C" + idx + ".java");
+    }
+
+    /**
+     * Expected package of a Java file.
+     *
+     * @param idx Index of the file.
+     * @return Package name, or null if the file is malformed.
+     */
+    String pkg(final int idx) {
+        final SplittableRandom random = this.random(idx);
+        final String pkg = this.name(random);
+        String result = pkg;
+        if (random.nextDouble() < this.malformed) {
+            result = null;
+        }
+        return result;
+    }
+
+    /**
+     * Random source of a file.
+     *
+     * @param idx Index of the file.
+     * @return Random source, the same for the same seed and index.
+     */
+    private SplittableRandom random(final int idx) {
+        return new SplittableRandom(this.seed * 0x9E3779B97F4A7C15L + idx);
+    }
+
+    /**
+     * Pick a package name.
+     *
+     * @param random Random source.
+     * @return Package name.
+     */
+    private String name(final SplittableRandom random) {
+        final StringBuilder name = new StringBuilder("org.corpus");
+        int num = random.nextInt(this.pkgs);
+        do {
+            name.append(".p").append(num % this.fanout);
+            num /= this.fanout;
+        } while (num > 0);
+        return name.toString();
+    }
+
+    /**
+     * Content of a Java file.
+     *
+     * @param idx Index of the file.
+     * @param pkg Package name.
+     * @param broken Whether the file is malformed.
+     * @param random Random source.
+     * @return Bytes of the file.
+     */
+    private byte[] content(final int idx, final String pkg,
+        final boolean broken, final SplittableRandom random) {
+        final StringBuilder text = new StringBuilder();
+        if (random.nextDouble() < this.bom) {
+            text.append(Corpus.BOM);
+        }
+        if (random.nextDouble() < this.noise) {
+            text.append("/*\n * Copyright ").append(idx).append('\n')
+                .append(" * Licensed under the MIT License.\n".repeat(20))
+                .append(" */\n// generated, do not edit\n")
+                .append("@Deprecated\n@SuppressWarnings(\"package x;\")\n");
+        }
+        if (broken) {
+            switch (random.nextInt(3)) {
+                case 0:
+                    text.append("package ").append(pkg).append('\n');
+                    break;
+                case 1:
+                    text.append("pack age ").append(pkg).append(";\n");
+                    break;
+                default:
+                    text.append("/* package ").append(pkg).append(";\n");
+                    break;
+            }
+        } else {
+            text.append("package ").append(pkg).append(";\n");
+        }
+        text.append("\npublic class C").append(idx).append(" {\n}\n");
+        String result = text.toString();
+        if (random.nextDouble() < this.crlf) {
+            result = result.replace("\n", "\r\n");
+        }
+        return result.getBytes(StandardCharsets.UTF_8);
+    }
+}
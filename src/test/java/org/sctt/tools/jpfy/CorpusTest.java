@@ -0,0 +1,92 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Corpus}.
+ */
+@DisplayName("Corpus tests")
+class CorpusTest {
+
+    @Test
+    @DisplayName("Should write the same tree for the same seed")
+    void shouldBeDeterministic(@TempDir Path first, @TempDir Path second)
+        throws IOException {
+        // given
+        Corpus corpus = new Corpus().files(50).noise(0.5, 0.5, 0.5)
+            .resources(0.5).malformed(0.2);
+
+        // when
+        long written = corpus.write(first);
+        corpus.write(second);
+
+        // then
+        assertEquals(written, count(first));
+        for (int idx = 0; idx < 50; ++idx) {
+            assertArrayEquals(
+                Files.readAllBytes(corpus.file(first, idx)),
+                Files.readAllBytes(corpus.file(second, idx))
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Should write files whose packages are found by the scanner")
+    void shouldMatchScanner(@TempDir Path root) throws IOException {
+        // given
+        Corpus corpus = new Corpus().files(200).nested(2, 10)
+            .packages(50, 5).noise(0.5, 0.3, 0.3).malformed(0.1);
+        Buffers buffers = new Buffers(8192);
+
+        // when
+        corpus.write(root);
+
+        // then
+        int checked = 0;
+        for (int idx = 0; idx < 200; ++idx) {
+            String expected = corpus.pkg(idx);
+            if (expected != null) {
+                Path file = corpus.file(root, idx);
+                assertEquals(
+                    expected,
+                    new PrefixJavaFile(file, buffers).pkg().name(),
+                    file.toString()
+                );
+                checked += 1;
+            }
+        }
+        assertTrue(checked > 150);
+    }
+
+    @Test
+    @DisplayName("Should put all files into root when flat")
+    void shouldWriteFlatTree(@TempDir Path root) throws IOException {
+        // given
+        Corpus corpus = new Corpus().files(30).flat();
+
+        // when
+        corpus.write(root);
+
+        // then
+        try (Stream<Path> files = Files.list(root)) {
+            assertEquals(30, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    private static long count(Path root) throws IOException {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import picocli.CommandLine;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for {@link Daemon} and {@link Client}.
+ */
+@DisplayName("Daemon tests")
+class DaemonTest {
+
+    @TempDir
+    Path dir;
+
+    private Path socket;
+
+    private Thread server;
+
+    @BeforeEach
+    void start() throws InterruptedException {
+        socket = dir.resolve("jpfy.sock");
+        server = new Thread(() -> {
+            try {
+                new Daemon(socket).run();
+            } catch (IOException ex) {
+                // interrupted
+            }
+        });
+        server.start();
+        while (!Files.exists(socket)) {
+            Thread.sleep(10);
+        }
+    }
+
+    @AfterEach
+    void stop() throws InterruptedException {
+        server.interrupt();
+        server.join(5000);
+    }
+
+    @Test
+    @DisplayName("Should print plan of a run served by the daemon")
+    void shouldServeRun() throws IOException {
+        // given
+        Path tree = Files.createDirectories(dir.resolve("tree"));
+        Files.writeString(tree.resolve("A.java"), "package org.a;");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        int code = client(out, new ByteArrayOutputStream()).call(List.of(tree.toString()));
+
+        // then
+        assertEquals(0, code);
+        assertEquals(
+            tree.resolve("A.java") + "=" + tree.resolve("org/a/A.java") + "\n",
+            out.toString(StandardCharsets.UTF_8)
+        );
+    }
+
+    @Test
+    @DisplayName("Should reuse packages found by earlier runs")
+    void shouldReusePackages() throws IOException {
+        // given
+        Path tree = Files.createDirectories(dir.resolve("tree"));
+        Files.writeString(tree.resolve("A.java"), "package org.a;");
+        Path json = dir.resolve("stats.json");
+        client(new ByteArrayOutputStream(), new ByteArrayOutputStream()).call(List.of(tree.toString()));
+
+        // when
+        client(new ByteArrayOutputStream(), new ByteArrayOutputStream()).call(
+            List.of("--stats-json", json.toString(), tree.toString())
+        );
+
+        // then
+        assertTrue(Files.readString(json).contains("\"parsed\":0,\"cacheHits\":1"));
+    }
+
+    @Test
+    @DisplayName("Should send errors and exit code of a failed run")
+    void shouldSendErrors() throws IOException {
+        // given
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+        // when
+        int code = client(new ByteArrayOutputStream(), err).call(List.of("--watch", dir.toString()));
+
+        // then
+        assertEquals(2, code);
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains("not served"));
+    }
+
+    @Test
+    @DisplayName("Should forward arguments with --connect")
+    void shouldForwardWithConnect() throws IOException {
+        // given
+        Path tree = Files.createDirectories(dir.resolve("tree"));
+        Files.writeString(tree.resolve("A.java"), "package org.a;");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        App app = new App(new PrintStream(out, true, StandardCharsets.UTF_8), System.err, null);
+
+        // when
+        int code = new CommandLine(app).execute("--connect", socket.toString(), "--format=tsv", tree.toString());
+
+        // then
+        assertEquals(0, code);
+        assertEquals(
+            tree.resolve("A.java") + "\t" + tree.resolve("org/a/A.java") + "\n",
+            out.toString(StandardCharsets.UTF_8)
+        );
+    }
+
+    @Test
+    @DisplayName("Should keep stats of the daemon with --connect")
+    void shouldKeepDaemonStatsWithConnect() throws IOException {
+        // given
+        Path tree = Files.createDirectories(dir.resolve("tree"));
+        Files.writeString(tree.resolve("A.java"), "package org.a;");
+        Path json = dir.resolve("stats.json");
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        App app = new App(
+            new PrintStream(new ByteArrayOutputStream(), true, StandardCharsets.UTF_8),
+            new PrintStream(err, true, StandardCharsets.UTF_8),
+            null
+        );
+
+        // when
+        int code = new CommandLine(app).execute(
+            "--connect", socket.toString(), "--stats", "--stats-json", json.toString(), tree.toString()
+        );
+
+        // then
+        assertEquals(0, code);
+        assertTrue(Files.readString(json).contains("\"javaFiles\":1"));
+        String printed = err.toString(StandardCharsets.UTF_8);
+        assertTrue(printed.contains("in place"));
+        assertEquals(printed.indexOf("in place"), printed.lastIndexOf("in place"));
+    }
+
+    @Test
+    @DisplayName("Should remove socket when stopped")
+    void shouldRemoveSocket() throws InterruptedException {
+        // when
+        stop();
+
+        // then
+        assertFalse(Files.exists(socket));
+    }
+
+    private Client client(ByteArrayOutputStream out, ByteArrayOutputStream err) {
+        return new Client(
+            socket,
+            new PrintStream(out, true, StandardCharsets.UTF_8),
+            new PrintStream(err, true, StandardCharsets.UTF_8)
+        );
+    }
+}
@@ -0,0 +1,63 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Dedup}.
+ */
+@DisplayName("Dedup tests")
+class DedupTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 0, 4})
+    @DisplayName("Should map duplicates to the first file with same content")
+    void shouldFindDuplicates(int threads, @TempDir Path dir) throws IOException {
+        // given
+        Plan plan = new Plan();
+        for (String name : new String[] {"A", "B", "C", "D"}) {
+            Files.writeString(dir.resolve(name + ".java"), name.equals("D") ? "other" : "same!");
+            plan.put(dir.resolve(name + ".java"), dir.resolve("out").resolve(name + ".java"));
+        }
+        Dedup dedup = new Dedup(threads, 2);
+
+        // when
+        Map<Path, Path> dups = dedup.apply(plan);
+
+        // then
+        assertEquals(
+            Map.of(dir.resolve("B.java"), dir.resolve("A.java"), dir.resolve("C.java"), dir.resolve("A.java")),
+            dups
+        );
+        assertEquals(10, dedup.saved());
+    }
+
+    @Test
+    @DisplayName("Should ignore empty and missing files")
+    void shouldIgnoreEmptyAndMissingFiles(@TempDir Path dir) throws IOException {
+        // given
+        Plan plan = new Plan();
+        Files.writeString(dir.resolve("A.java"), "");
+        Files.writeString(dir.resolve("B.java"), "");
+        plan.put(dir.resolve("A.java"), dir.resolve("out/A.java"));
+        plan.put(dir.resolve("B.java"), dir.resolve("out/B.java"));
+        plan.put(dir.resolve("C.java"), dir.resolve("out/C.java"));
+
+        // when
+        Map<Path, Path> dups = new Dedup(1, 1).apply(plan);
+
+        // then
+        assertTrue(dups.isEmpty());
+    }
+}
@@ -0,0 +1,69 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link Directories}.
+ */
+@DisplayName("Directories tests")
+class DirectoriesTest {
+
+    @Test
+    @DisplayName("Should resolve directory to package directory of its Java file")
+    void shouldResolveDirectory() {
+        // given
+        Directories dirs = new Directories(false);
+
+        // when
+        dirs.add(Path.of("src/a/A.java"), Path.of("src/org/a/A.java"));
+
+        // then
+        assertEquals(Path.of("src/org/a"), dirs.destination(Path.of("src/a")));
+    }
+
+    @Test
+    @DisplayName("Should prefer smallest Java file regardless of order")
+    void shouldPreferSmallestFile() {
+        // given
+        Directories forward = new Directories(false);
+        Directories backward = new Directories(false);
+
+        // when
+        forward.add(Path.of("src/A.java"), Path.of("src/org/a/A.java"));
+        forward.add(Path.of("src/B.java"), Path.of("src/org/b/B.java"));
+        backward.add(Path.of("src/B.java"), Path.of("src/org/b/B.java"));
+        backward.add(Path.of("src/A.java"), Path.of("src/org/a/A.java"));
+
+        // then
+        assertEquals(Path.of("src/org/a"), forward.destination(Path.of("src")));
+        assertEquals(Path.of("src/org/a"), backward.destination(Path.of("src")));
+    }
+
+    @Test
+    @DisplayName("Should return null for directory without Java files")
+    void shouldReturnNullForUnknownDirectory() {
+        assertNull(new Directories(false).destination(Path.of("src/none")));
+    }
+
+    @Test
+    @DisplayName("Should keep package directories of files only when asked")
+    void shouldKeepFilesWhenAsked() {
+        // given
+        Directories kept = new Directories(true);
+        Directories dropped = new Directories(false);
+
+        // when
+        kept.add(Path.of("src/A.java"), Path.of("src/org/a/A.java"));
+        dropped.add(Path.of("src/A.java"), Path.of("src/org/a/A.java"));
+
+        // then
+        assertEquals(Path.of("src/org/a"), kept.file(Path.of("src/A.java")));
+        assertNull(dropped.file(Path.of("src/A.java")));
+    }
+}
@@ -0,0 +1,104 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Filter}.
+ */
+@DisplayName("Filter tests")
+class FilterTest {
+
+    private final Path root = Path.of("/src");
+
+    @Test
+    @DisplayName("Should have no rules when nothing is filtered")
+    void shouldHaveNoRulesByDefault() {
+        assertNull(Filter.ALL.top(root));
+        assertTrue(Filter.ALL.walks(null, root.resolve("target")));
+        assertTrue(Filter.ALL.accepts(null, root.resolve("A.txt")));
+    }
+
+    @Test
+    @DisplayName("Should match globs without slash by name at any depth")
+    void shouldMatchNamesAnywhere() {
+        // given
+        Filter filter = new Filter(List.of(), List.of("target", "*.class"), false);
+        Filter.Scope scope = filter.top(root);
+
+        // then
+        assertFalse(filter.walks(scope, root.resolve("a/b/target")));
+        assertFalse(filter.accepts(scope, root.resolve("a/B.class")));
+        assertTrue(filter.walks(scope, root.resolve("a/targets")));
+        assertTrue(filter.accepts(scope, root.resolve("a/B.java")));
+    }
+
+    @Test
+    @DisplayName("Should match globs with slash by path from the root")
+    void shouldMatchPathsFromRoot() {
+        // given
+        Filter filter = new Filter(List.of(), List.of("/build", "gen/**/*.java"), false);
+        Filter.Scope scope = filter.top(root);
+
+        // then
+        assertFalse(filter.walks(scope, root.resolve("build")));
+        assertTrue(filter.walks(scope, root.resolve("a/build")));
+        assertFalse(filter.accepts(scope, root.resolve("gen/x/A.java")));
+        assertTrue(filter.accepts(scope, root.resolve("src/gen/x/A.java")));
+    }
+
+    @Test
+    @DisplayName("Should only report files matching an include")
+    void shouldOnlyReportIncludedFiles() {
+        // given
+        Filter filter = new Filter(List.of("*.java", "*.properties"), List.of(), false);
+        Filter.Scope scope = filter.top(root);
+
+        // then
+        assertTrue(filter.accepts(scope, root.resolve("a/A.java")));
+        assertTrue(filter.accepts(scope, root.resolve("a/a.properties")));
+        assertFalse(filter.accepts(scope, root.resolve("a/README.md")));
+        assertTrue(filter.walks(scope, root.resolve("a")), "Directories are always walked");
+    }
+
+    @Test
+    @DisplayName("Should apply .gitignore rules of a folder below it, last rule winning")
+    void shouldApplyGitignore(@TempDir Path dir) throws IOException {
+        // given
+        Files.writeString(dir.resolve(".gitignore"), "# build output\n/out/\n*.log\n!keep.log\n");
+        Files.createDirectories(dir.resolve("sub"));
+        Files.writeString(dir.resolve("sub/.gitignore"), "tmp/\n");
+        Filter filter = new Filter(List.of(), List.of(), true);
+
+        // when
+        Filter.Scope top = filter.enter(filter.top(dir), dir);
+        Filter.Scope sub = filter.enter(top, dir.resolve("sub"));
+
+        // then
+        assertFalse(filter.walks(top, dir.resolve("out")));
+        assertFalse(filter.walks(top, dir.resolve(".git")));
+        assertFalse(filter.accepts(top, dir.resolve("a.log")));
+        assertTrue(filter.accepts(top, dir.resolve("keep.log")));
+        assertTrue(filter.accepts(top, dir.resolve("out")), "Directory rules skip no files");
+        assertTrue(filter.walks(top, dir.resolve("tmp")));
+        assertFalse(filter.walks(sub, dir.resolve("sub/tmp")));
+        assertFalse(filter.accepts(sub, dir.resolve("sub/b.log")));
+    }
+
+    @Test
+    @DisplayName("Should reject invalid globs")
+    void shouldRejectInvalidGlobs() {
+        assertThrows(IllegalArgumentException.class, () -> new Filter(List.of("[a"), List.of(), false));
+    }
+}
@@ -0,0 +1,155 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Journal}.
+ */
+@DisplayName("Journal tests")
+class JournalTest {
+
+    @Test
+    @DisplayName("Should resume only moves not completed")
+    void shouldResumePendingMoves(@TempDir Path tempDir) throws IOException {
+        // given
+        Plan plan = plan(tempDir, 3);
+        Path file = tempDir.resolve("jpfy.journal");
+        try (Journal journal = new Journal(file, 100)) {
+            journal.begin(plan);
+            Path first = tempDir.resolve("F0.java");
+            Files.createDirectories(plan.get(first).getParent());
+            journal.recording(new MoveTransfer()).apply(first, plan.get(first));
+        }
+
+        // when
+        Plan pending = new Journal(file, 100).pending();
+
+        // then
+        assertEquals(2, pending.size());
+        assertNull(pending.get(tempDir.resolve("F0.java").toAbsolutePath()));
+    }
+
+    @Test
+    @DisplayName("Should treat unrecorded move as completed when files say so")
+    void shouldDetectUnrecordedMoves(@TempDir Path tempDir) throws IOException {
+        // given
+        Plan plan = plan(tempDir, 2);
+        Path file = tempDir.resolve("jpfy.journal");
+        try (Journal journal = new Journal(file, 100)) {
+            journal.begin(plan);
+        }
+        Path first = tempDir.resolve("F0.java");
+        Files.createDirectories(plan.get(first).getParent());
+        Files.move(first, plan.get(first));
+
+        // when
+        Journal journal = new Journal(file, 100);
+
+        // then
+        assertEquals(1, journal.pending().size());
+        assertEquals(1, journal.completed().size());
+    }
+
+    @Test
+    @DisplayName("Should roll back completed moves")
+    void shouldRollBack(@TempDir Path tempDir) throws IOException {
+        // given
+        Plan plan = plan(tempDir, 4);
+        Path file = tempDir.resolve("jpfy.journal");
+        try (Journal journal = new Journal(file, 2)) {
+            journal.begin(plan);
+            new Batch(journal.recording(new MoveTransfer()), 1, 1).apply(plan);
+        }
+
+        // when
+        try (Journal journal = new Journal(file, 2)) {
+            new Batch(journal.undoing(new MoveTransfer()), 1, 1).apply(journal.completed());
+        }
+
+        // then
+        for (int i = 0; i < 4; i++) {
+            assertTrue(Files.exists(tempDir.resolve("F" + i + ".java")));
+        }
+        assertEquals(0, new Journal(file, 2).completed().size());
+    }
+
+    @Test
+    @DisplayName("Should remove directories created for moves once empty")
+    void shouldPruneCreatedDirectories(@TempDir Path tempDir) throws IOException {
+        // given
+        Path kept = Files.createDirectories(tempDir.resolve("org/kept"));
+        Plan plan = new Plan();
+        Path first = Files.writeString(tempDir.resolve("A.java"), "package org.a.b;");
+        Path second = Files.writeString(tempDir.resolve("B.java"), "package org.kept;");
+        plan.put(first, tempDir.resolve("org/a/b/A.java"));
+        plan.put(second, kept.resolve("B.java"));
+        Path file = tempDir.resolve("jpfy.journal");
+        try (Journal journal = new Journal(file, 2)) {
+            journal.begin(plan);
+            new Batch(journal.recording(new MoveTransfer()), 1, 1).apply(plan);
+        }
+        try (Journal journal = new Journal(file, 2)) {
+            new Batch(journal.undoing(new MoveTransfer()), 1, 1).apply(journal.completed());
+        }
+
+        // when
+        new Journal(file, 2).prune();
+
+        // then
+        assertFalse(Files.exists(tempDir.resolve("org/a")));
+        assertTrue(Files.isDirectory(kept));
+        assertTrue(Files.exists(first));
+    }
+
+    @Test
+    @DisplayName("Should ignore torn record at the end")
+    void shouldIgnoreTornRecord(@TempDir Path tempDir) throws IOException {
+        // given
+        Plan plan = plan(tempDir, 2);
+        Path file = tempDir.resolve("jpfy.journal");
+        try (Journal journal = new Journal(file, 100)) {
+            journal.begin(plan);
+        }
+        Files.write(file, new byte[] {'D', 0, 42, '/'}, StandardOpenOption.APPEND);
+
+        // when
+        Plan pending = new Journal(file, 100).pending();
+
+        // then
+        assertEquals(2, pending.size());
+    }
+
+    @Test
+    @DisplayName("Should reject file which is not a journal")
+    void shouldRejectOtherFile(@TempDir Path tempDir) throws IOException {
+        // given
+        Path file = tempDir.resolve("other.txt");
+        Files.writeString(file, "hello world");
+
+        // when / then
+        assertThrows(IOException.class, () -> new Journal(file, 1).pending());
+    }
+
+    private static Plan plan(Path dir, int count) throws IOException {
+        Plan plan = new Plan();
+        for (int i = 0; i < count; i++) {
+            Path file = dir.resolve("F" + i + ".java");
+            Files.writeString(file, "package p" + i + ";");
+            plan.put(file, dir.resolve("p" + i).resolve(file.getFileName()));
+        }
+        return plan;
+    }
+}
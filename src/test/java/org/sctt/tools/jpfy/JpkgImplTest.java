@@ -117,4 +117,34 @@ class JpkgImplTest {
             assertEquals("org/EXAMPLE/App", result.toString());
         }
     }
-}
\ No newline at end of file
+
+    @Nested
+    @DisplayName("name tests")
+    class NameTests {
+
+        @ParameterizedTest
+        @ValueSource(strings = {"", "a", "org.sctt.tools.jpfy"})
+        @DisplayName("Should return package name as given")
+        void shouldReturnPackageName(String packageName) {
+            // when
+            String result = new JpkgImpl(packageName).name();
+
+            // then
+            assertEquals(packageName, result);
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {"", "a", "org.sctt.tools.jpfy"})
+        @DisplayName("Should derive name from path by default")
+        void shouldDeriveNameByDefault(String packageName) {
+            // given
+            Jpkg pkg = new JpkgImpl(packageName)::asPath;
+
+            // when
+            String result = pkg.name();
+
+            // then
+            assertEquals(packageName, result);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link LinkTransfer}.
+ */
+@DisplayName("LinkTransfer tests")
+class LinkTransferTest {
+
+    @Test
+    @DisplayName("Should link destination to existing copy")
+    void shouldLinkToExistingCopy(@TempDir Path dir) throws IOException {
+        // given
+        Path source = Files.writeString(dir.resolve("B.java"), "same");
+        Path existing = Files.writeString(dir.resolve("A.java"), "same");
+        Path dest = dir.resolve("out.java");
+
+        // when
+        new LinkTransfer(Map.of(source, existing), new CopyTransfer()).apply(source, dest);
+
+        // then
+        assertTrue(Files.isSameFile(existing, dest));
+    }
+
+    @Test
+    @DisplayName("Should copy source when existing copy is missing")
+    void shouldFallBackToCopy(@TempDir Path dir) throws IOException {
+        // given
+        Path source = Files.writeString(dir.resolve("B.java"), "same");
+        Path dest = dir.resolve("out.java");
+
+        // when
+        new LinkTransfer(Map.of(source, dir.resolve("missing.java")), new CopyTransfer()).apply(source, dest);
+
+        // then
+        assertEquals("same", Files.readString(dest));
+        assertFalse(Files.isSameFile(source, dest));
+    }
+}
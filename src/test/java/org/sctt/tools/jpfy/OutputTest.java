@@ -0,0 +1,83 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link Output} and {@link Format}.
+ */
+@DisplayName("Output tests")
+class OutputTest {
+
+    @Test
+    @DisplayName("Should print text format")
+    void shouldPrintText() throws IOException {
+        assertEquals("a/A.java=org/A.java\n", print(Format.TEXT, "a/A.java", "org/A.java"));
+    }
+
+    @Test
+    @DisplayName("Should print tab separated format")
+    void shouldPrintTsv() throws IOException {
+        assertEquals("a/A.java\torg/A.java\n", print(Format.TSV, "a/A.java", "org/A.java"));
+    }
+
+    @Test
+    @DisplayName("Should escape tabs, line breaks and backslashes in TSV")
+    void shouldEscapeTsv() throws IOException {
+        assertEquals(
+            "a/x\\ty\\nz\\r\\\\.java\torg/A.java\n",
+            print(Format.TSV, "a/x\ty\nz\r\\.java", "org/A.java")
+        );
+    }
+
+    @Test
+    @DisplayName("Should print JSON lines with escaping")
+    void shouldPrintJsonLines() throws IOException {
+        assertEquals(
+            "{\"source\":\"a/\\\"q\\\\\\u0009.java\",\"destination\":\"org/A.java\"}\n",
+            print(Format.JSONL, "a/\"q\\\t.java", "org/A.java")
+        );
+    }
+
+    @Test
+    @DisplayName("Should not print before flush")
+    void shouldBufferUntilFlush() throws IOException {
+        // given
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Output output = new Output(new PrintStream(bytes, false, StandardCharsets.UTF_8), Format.TEXT);
+
+        // when
+        output.put(Path.of("A.java"), Path.of("org/A.java"));
+
+        // then
+        assertEquals(0, bytes.size());
+        assertEquals(1, output.size());
+        output.flush();
+        assertEquals("A.java=org/A.java\n", bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    @DisplayName("Should find format by name in any case")
+    void shouldFindFormatByName() {
+        assertEquals(Format.JSONL, Format.of("jsonl"));
+        assertEquals(Format.TSV, Format.of("TSV"));
+        assertThrows(IllegalArgumentException.class, () -> Format.of("xml"));
+    }
+
+    private static String print(Format format, String source, String destination) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Output output = new Output(new PrintStream(bytes, false, StandardCharsets.UTF_8), format);
+        output.put(Path.of(source), Path.of(destination));
+        output.flush();
+        return bytes.toString(StandardCharsets.UTF_8);
+    }
+}
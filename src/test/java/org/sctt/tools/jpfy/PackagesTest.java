@@ -0,0 +1,77 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Unit tests for {@link Packages}.
+ */
+@DisplayName("Packages tests")
+class PackagesTest {
+
+    @Test
+    @DisplayName("Should return the same package for the same name")
+    void shouldInternPackages() {
+        // given
+        Packages packages = new Packages(Path.of("src"));
+
+        // when
+        Jpkg first = packages.of("com.example.app");
+        Jpkg second = packages.of(new String("com.example.app"));
+
+        // then
+        assertSame(first, second);
+        assertSame(first.asPath(), second.asPath());
+        assertEquals("com.example.app", first.name());
+        assertEquals(Path.of("com/example/app"), first.asPath());
+    }
+
+    @Test
+    @DisplayName("Should resolve package directories under the root once")
+    void shouldResolveDirectoriesOnce() {
+        // given
+        Packages packages = new Packages(Path.of("src"));
+
+        // when
+        Path dir = packages.dir(packages.of("com.example"));
+
+        // then
+        assertEquals(Path.of("src/com/example"), dir);
+        assertSame(dir, packages.dir(new JpkgImpl("com.example")));
+    }
+
+    @Test
+    @DisplayName("Should share prefixes between packages")
+    void shouldSharePrefixes() {
+        // given
+        Packages packages = new Packages(Path.of("src"));
+
+        // when
+        Jpkg app = packages.of("com.example.app");
+
+        // then
+        assertEquals(Path.of("com/example"), packages.of("com.example").asPath());
+        assertSame(app, packages.of("com.example.app"));
+        assertEquals("com.example", packages.of("com.example").name());
+        assertEquals(Path.of("src/com/example/lib"), packages.dir(packages.of("com.example.lib")));
+    }
+
+    @Test
+    @DisplayName("Should map default package to the root")
+    void shouldMapDefaultPackageToRoot() {
+        // given
+        Path root = Path.of("src");
+
+        // when
+        Packages packages = new Packages(root);
+
+        // then
+        assertSame(root, packages.dir(packages.of("")));
+        assertEquals(Path.of(""), packages.of("").asPath());
+    }
+}
@@ -0,0 +1,66 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Unit tests for {@link Plan}.
+ */
+@DisplayName("Plan tests")
+class PlanTest {
+
+    @Test
+    @DisplayName("Should give back destinations of moves keeping the name")
+    void shouldRebuildDestinations() {
+        // given
+        Plan plan = new Plan();
+
+        // when
+        plan.put(Path.of("src/B.java"), Path.of("src/org/b/B.java"));
+        plan.put(Path.of("src/A.java"), Path.of("src/org/a/A.java"));
+
+        // then
+        List<String> moves = new ArrayList<>();
+        plan.forEach((from, to) -> moves.add(from + "=" + to));
+        assertEquals(List.of("src/A.java=src/org/a/A.java", "src/B.java=src/org/b/B.java"), moves);
+        assertEquals(Path.of("src/org/b/B.java"), plan.get(Path.of("src/B.java")));
+        assertNull(plan.get(Path.of("src/C.java")));
+    }
+
+    @Test
+    @DisplayName("Should keep moves renaming the file")
+    void shouldKeepRenames() {
+        // given
+        Plan plan = new Plan();
+
+        // when
+        plan.put(Path.of("src/A.java"), Path.of("out/Other.java"));
+        plan.put(Path.of("src/B.java"), Path.of("B.java"));
+
+        // then
+        assertEquals(Path.of("out/Other.java"), plan.get(Path.of("src/A.java")));
+        assertEquals(Path.of("B.java"), plan.get(Path.of("src/B.java")));
+    }
+
+    @Test
+    @DisplayName("Should replace a rename with a move of the same source")
+    void shouldReplaceRename() {
+        // given
+        Plan plan = new Plan();
+        plan.put(Path.of("src/A.java"), Path.of("out/Other.java"));
+
+        // when
+        plan.put(Path.of("src/A.java"), Path.of("out/A.java"));
+
+        // then
+        assertEquals(Path.of("out/A.java"), plan.get(Path.of("src/A.java")));
+        assertEquals(1, plan.size());
+    }
+}
@@ -0,0 +1,165 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link PrefixJavaFile}.
+ */
+@DisplayName("PrefixJavaFile tests")
+class PrefixJavaFileTest {
+
+    @Nested
+    @DisplayName("pkg() tests")
+    class PkgTests {
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+            "package org.example.app;",
+            "   package   org.example.app   ;   ",
+            "package org . example . app ;",
+            "// this package is great\npackage org.example.app;",
+            "/* package wrong; */ package org.example.app;",
+            "/**\n * License.\n */\n\npackage org.example.app;\n\nclass A {}",
+            "@Deprecated\npackage org.example.app;",
+            "@javax.annotation.Generated(value = \"x)\", date = ')')\npackage org.example.app;",
+            "@A(@B(\"(\")) @C package org.example.app;",
+            "\uFEFFpackage org.example.app;",
+            "// header\r\npackage org.example.app;\r\n",
+            "package/* odd */org.example.app;",
+            "package org.example.app"
+        })
+        @DisplayName("Should parse package declaration")
+        void shouldParsePackage(String content, @TempDir Path tempDir) throws IOException {
+            // given
+            Path javaFile = tempDir.resolve("A.java");
+            Files.writeString(javaFile, content);
+
+            // when
+            Jpkg pkg = new PrefixJavaFile(javaFile, new Buffers(64)).pkg();
+
+            // then
+            assertEquals("org/example/app", pkg.asPath().toString());
+        }
+
+        @ParameterizedTest
+        @ValueSource(strings = {
+            "",
+            "public class NoPackage {}",
+            "import java.util.List;\nclass A {}",
+            "// package org.example;\nclass A {}",
+            "/* unterminated package org.example;",
+            "packages org.example;",
+            "package org-example;"
+        })
+        @DisplayName("Should return empty package when there is none")
+        void shouldReturnEmptyPackage(String content, @TempDir Path tempDir) throws IOException {
+            // given
+            Path javaFile = tempDir.resolve("A.java");
+            Files.writeString(javaFile, content);
+
+            // when
+            Jpkg pkg = new PrefixJavaFile(javaFile, new Buffers(16)).pkg();
+
+            // then
+            assertEquals("", pkg.asPath().toString());
+        }
+
+        @Test
+        @DisplayName("Should read past prefix when header is longer")
+        void shouldReadPastPrefix(@TempDir Path tempDir) throws IOException {
+            // given
+            Path javaFile = tempDir.resolve("Long.java");
+            String content = "/*" + "x".repeat(10_000) + "*/\npackage very.long.header;";
+            Files.writeString(javaFile, content);
+
+            // when
+            Jpkg pkg = new PrefixJavaFile(javaFile, new Buffers(32)).pkg();
+
+            // then
+            assertEquals("very/long/header", pkg.asPath().toString());
+        }
+
+        @Test
+        @DisplayName("Should stop growing the prefix and warn on an unterminated comment")
+        void shouldCapPrefixOnUnterminatedComment(@TempDir Path tempDir) throws IOException {
+            // given
+            Path javaFile = tempDir.resolve("Huge.java");
+            Files.writeString(javaFile, "/*" + "x".repeat(3 << 20) + "*/\npackage too.far;");
+            LongAdder read = new LongAdder();
+            ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+
+            // when
+            Jpkg pkg = new PrefixJavaFile(
+                javaFile, new Buffers(64), read, new PrintStream(warnings, true, StandardCharsets.UTF_8)
+            ).pkg();
+
+            // then
+            assertEquals("", pkg.asPath().toString());
+            assertEquals(1 << 20, read.sum());
+            assertTrue(warnings.toString(StandardCharsets.UTF_8).contains("Huge.java"));
+        }
+
+        @Test
+        @DisplayName("Should tolerate bytes which are not UTF-8")
+        void shouldTolerateNonUtf8(@TempDir Path tempDir) throws IOException {
+            // given
+            Path javaFile = tempDir.resolve("Latin.java");
+            byte[] content = "// Café ©\npackage org.latin;"
+                .getBytes(StandardCharsets.ISO_8859_1);
+            Files.write(javaFile, content);
+
+            // when
+            Jpkg pkg = new PrefixJavaFile(javaFile, new Buffers(64)).pkg();
+
+            // then
+            assertEquals("org/latin", pkg.asPath().toString());
+        }
+
+        @Test
+        @DisplayName("Should reuse pooled buffers across files")
+        void shouldReuseBuffers(@TempDir Path tempDir) throws IOException {
+            // given
+            Buffers buffers = new Buffers(64);
+            Path first = tempDir.resolve("First.java");
+            Path second = tempDir.resolve("Second.java");
+            Files.writeString(first, "package a.very.long.package.name.to.overwrite;");
+            Files.writeString(second, "package b;");
+
+            // when
+            new PrefixJavaFile(first, buffers).pkg();
+            Jpkg pkg = new PrefixJavaFile(second, buffers).pkg();
+
+            // then
+            assertEquals("b", pkg.asPath().toString());
+        }
+
+        @Test
+        @DisplayName("Should throw exception for non-existent file")
+        void shouldThrowExceptionForNonExistentFile() {
+            // given
+            PrefixJavaFile file = new PrefixJavaFile(
+                Path.of("/non/existent/path/Test.java"), new Buffers(64)
+            );
+
+            // when / then
+            assertThrows(RuntimeException.class, file::pkg);
+        }
+    }
+}
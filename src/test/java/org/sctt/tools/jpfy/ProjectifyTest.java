@@ -0,0 +1,154 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Projectify}.
+ */
+@DisplayName("Projectify tests")
+class ProjectifyTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 0, 4})
+    @DisplayName("Should plan every Java file into its package")
+    void shouldPlanJavaFiles(int threads, @TempDir Path dir) throws IOException {
+        // given
+        Corpus corpus = new Corpus().files(500).nested(2, 20).packages(30, 4);
+        corpus.write(dir);
+
+        // when
+        Plan plan = new Projectify(List.of(dir)).threads(threads).plan();
+
+        // then
+        assertEquals(500, plan.size());
+        for (int idx = 0; idx < 500; idx += 37) {
+            assertEquals(
+                dir.resolve(corpus.pkg(idx).replace('.', '/')).resolve("C" + idx + ".java"),
+                plan.get(corpus.file(dir, idx))
+            );
+        }
+    }
+
+    @Test
+    @DisplayName("Should stream moves to a sink and leave files in place")
+    void shouldStreamToSink(@TempDir Path dir) throws IOException {
+        // given
+        Path file = dir.resolve("A.java");
+        Files.writeString(file, "package a.b;\n\nclass A {}");
+        Map<Path, Path> moves = new ConcurrentHashMap<>();
+
+        // when
+        new Projectify(List.of(dir)).plan(moves::put);
+
+        // then
+        assertEquals(Map.of(file, dir.resolve("a/b/A.java")), moves);
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    @DisplayName("Should place resources only when asked to")
+    void shouldPlaceResourcesWhenAsked(@TempDir Path dir) throws IOException {
+        // given
+        Files.writeString(dir.resolve("A.java"), "package a;");
+        Files.writeString(dir.resolve("A.properties"), "key=value");
+
+        // when
+        Plan without = new Projectify(List.of(dir)).plan();
+        Plan with = new Projectify(List.of(dir)).resources(true).plan();
+
+        // then
+        assertNull(without.get(dir.resolve("A.properties")));
+        assertEquals(dir.resolve("a/A.properties"), with.get(dir.resolve("A.properties")));
+    }
+
+    @Test
+    @DisplayName("Should warn about resources without destination")
+    void shouldWarnAboutOrphanResources(@TempDir Path dir) throws IOException {
+        // given
+        Files.writeString(dir.resolve("orphan.txt"), "text");
+        ByteArrayOutputStream warnings = new ByteArrayOutputStream();
+        Stats stats = new Stats();
+
+        // when
+        Plan plan = new Projectify(List.of(dir))
+            .resources(true)
+            .stats(stats)
+            .warnings(new PrintStream(warnings, true))
+            .plan();
+
+        // then
+        assertTrue(plan.isEmpty());
+        assertTrue(warnings.toString().contains("orphan.txt"));
+        assertTrue(stats.json().contains("\"skipped\":1"));
+    }
+
+    @Test
+    @DisplayName("Should count files already in place and leave them out if asked")
+    void shouldDetectFilesInPlace(@TempDir Path dir) throws IOException {
+        // given
+        Files.createDirectories(dir.resolve("a/b"));
+        Files.writeString(dir.resolve("a/b/A.java"), "package a.b;");
+        Files.writeString(dir.resolve("a/B.java"), "package a.b;");
+        Projectify planner = new Projectify(List.of(dir));
+
+        // when
+        Plan kept = planner.plan();
+        long counted = planner.placed();
+        Plan omitted = planner.omitPlaced(true).plan();
+
+        // then
+        assertEquals(1, counted);
+        assertEquals(dir.resolve("a/b/A.java"), kept.get(dir.resolve("a/b/A.java")));
+        assertEquals(Map.of(dir.resolve("a/B.java"), dir.resolve("a/b/B.java")), toMap(omitted));
+        assertEquals(1, planner.placed());
+    }
+
+    @Test
+    @DisplayName("Should find packages with the given Java files")
+    void shouldUseGivenJavaFiles(@TempDir Path dir) throws IOException {
+        // given
+        Files.writeString(dir.resolve("A.java"), "package a;");
+
+        // when
+        Plan plan = new Projectify(List.of(dir))
+            .javas(file -> () -> new JpkgImpl("x.y"))
+            .plan();
+
+        // then
+        assertEquals(dir.resolve("x/y/A.java"), plan.get(dir.resolve("A.java")));
+    }
+
+    @Test
+    @DisplayName("Should refuse nested source roots")
+    void shouldRefuseNestedRoots(@TempDir Path dir) {
+        // when / then
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> new Projectify(List.of(dir.resolve("b").resolve(".."), dir.resolve("a/b")))
+        );
+    }
+
+    private static Map<Path, Path> toMap(Plan plan) {
+        Map<Path, Path> moves = new ConcurrentHashMap<>();
+        plan.forEach(moves::put);
+        return moves;
+    }
+}
@@ -0,0 +1,94 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Spill}.
+ */
+@DisplayName("Spill tests")
+class SpillTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {100000, 50, 7, 1})
+    @DisplayName("Should visit every move grouped by destination directory")
+    void shouldVisitMovesByDirectory(int size, @TempDir Path dir) throws IOException {
+        // given
+        List<Map.Entry<Path, Path>> visited = new ArrayList<>();
+        try (Spill spill = new Spill(dir.resolve("runs"), size, FileSystems.getDefault())) {
+            for (int idx = 999; idx >= 0; --idx) {
+                spill.put(
+                    Path.of("src/F" + idx + ".java"),
+                    Path.of("out/p" + idx % 13 + "/F" + idx + ".java")
+                );
+            }
+
+            // when
+            spill.forEach((from, to) -> visited.add(Map.entry(from, to)));
+        }
+
+        // then
+        assertEquals(1000, visited.size());
+        for (int idx = 1; idx < visited.size(); ++idx) {
+            Path prev = visited.get(idx - 1).getValue();
+            Path next = visited.get(idx).getValue();
+            int dirs = prev.getParent().toString().compareTo(next.getParent().toString());
+            assertTrue(dirs < 0 || dirs == 0 && prev.compareTo(next) < 0, prev + " before " + next);
+        }
+        assertTrue(visited.contains(Map.entry(Path.of("src/F42.java"), Path.of("out/p3/F42.java"))));
+    }
+
+    @Test
+    @DisplayName("Should keep moves of a directory apart from its subdirectories")
+    void shouldNotInterleaveSubdirectories(@TempDir Path dir) throws IOException {
+        // given
+        List<Path> visited = new ArrayList<>();
+        try (Spill spill = new Spill(dir, 1, FileSystems.getDefault())) {
+            spill.put(Path.of("x/A.java"), Path.of("a/A.java"));
+            spill.put(Path.of("x/B.java"), Path.of("a/b/B.java"));
+            spill.put(Path.of("x/C.java"), Path.of("a/C.java"));
+
+            // when
+            spill.forEach((from, to) -> visited.add(to));
+        }
+
+        // then
+        assertEquals(List.of(Path.of("a/A.java"), Path.of("a/C.java"), Path.of("a/b/B.java")), visited);
+    }
+
+    @Test
+    @DisplayName("Should write runs only when the buffer fills and delete them on close")
+    void shouldDeleteRuns(@TempDir Path dir) throws IOException {
+        // given
+        Spill spill = new Spill(dir, 10, FileSystems.getDefault());
+        for (int idx = 0; idx < 25; ++idx) {
+            spill.put(Path.of("F" + idx), Path.of("d/F" + idx));
+        }
+
+        // when
+        int runs = spill.spilled();
+        spill.close();
+
+        // then
+        assertEquals(2, runs);
+        assertEquals(25, spill.size());
+        try (Stream<Path> left = Files.list(dir)) {
+            assertEquals(0, left.count());
+        }
+    }
+}
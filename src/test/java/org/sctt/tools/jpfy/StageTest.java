@@ -0,0 +1,97 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Stage}.
+ */
+@DisplayName("Stage tests")
+class StageTest {
+
+    @Test
+    @DisplayName("Should hand every move over to the sink")
+    void shouldHandOverEveryMove() {
+        // given
+        Map<Path, Path> moves = new ConcurrentHashMap<>();
+
+        // when
+        try (Stage stage = new Stage(moves::put, 3, 2)) {
+            for (int idx = 0; idx < 1000; ++idx) {
+                stage.put(Path.of("src/F" + idx), Path.of("dst/F" + idx));
+            }
+        }
+
+        // then
+        assertEquals(1000, moves.size());
+        assertEquals(Path.of("dst/F999"), moves.get(Path.of("src/F999")));
+    }
+
+    @Test
+    @DisplayName("Should block the producer while the queue is full")
+    void shouldApplyBackpressure() throws InterruptedException {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger produced = new AtomicInteger();
+        Stage stage = new Stage(
+            (from, to) -> {
+                try {
+                    release.await();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                }
+            },
+            1, 2
+        );
+        Thread producer = Thread.ofPlatform().start(
+            () -> {
+                for (int idx = 0; idx < 10; ++idx) {
+                    stage.put(Path.of("F" + idx), Path.of("G" + idx));
+                    produced.incrementAndGet();
+                }
+            }
+        );
+
+        // when
+        producer.join(300);
+
+        // then
+        assertTrue(producer.isAlive(), "Producer should wait for room");
+        assertTrue(produced.get() <= 3, "At most the queue and one move in hand");
+        release.countDown();
+        producer.join();
+        stage.close();
+        assertEquals(10, produced.get());
+        assertFalse(producer.isAlive());
+    }
+
+    @Test
+    @DisplayName("Should rethrow failure of the sink on close")
+    void shouldRethrowFailure() {
+        // given
+        Stage stage = new Stage(
+            (from, to) -> {
+                throw new IllegalStateException("disk full");
+            },
+            2, 8
+        );
+        stage.put(Path.of("A"), Path.of("B"));
+
+        // when
+        IllegalStateException ex = assertThrows(IllegalStateException.class, stage::close);
+
+        // then
+        assertEquals("disk full", ex.getMessage());
+    }
+}
@@ -0,0 +1,86 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Stats}.
+ */
+@DisplayName("Stats tests")
+class StatsTest {
+
+    @Test
+    @DisplayName("Should count parses and pass packages through")
+    void shouldCountParses() {
+        // given
+        Stats stats = new Stats();
+        JavaFile java = stats.measured(() -> new JpkgImpl("org.a"));
+
+        // when
+        stats.java();
+        stats.java();
+        String name = java.pkg().name();
+
+        // then
+        assertEquals("org.a", name);
+        assertTrue(stats.json().contains("\"javaFiles\":2,\"parsed\":1,\"cacheHits\":1"));
+    }
+
+    @Test
+    @DisplayName("Should record latency of failed parses")
+    void shouldRecordFailedParses() {
+        // given
+        Stats stats = new Stats();
+        JavaFile java = stats.measured(() -> {
+            throw new IllegalStateException("broken");
+        });
+
+        // when
+        assertThrows(IllegalStateException.class, java::pkg);
+
+        // then
+        assertTrue(stats.json().contains("\"count\":1}"));
+    }
+
+    @Test
+    @DisplayName("Should count resources without destination as skipped")
+    void shouldCountSkippedResources() {
+        // given
+        Stats stats = new Stats();
+
+        // when
+        stats.resource(true);
+        stats.resource(false);
+
+        // then
+        assertTrue(stats.json().contains("\"resources\":2,\"skipped\":1"));
+    }
+
+    @Test
+    @DisplayName("Should sum phases of the same name")
+    void shouldSumPhases() {
+        // given
+        Stats stats = new Stats();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        stats.phase("scan", System.nanoTime());
+        stats.phase("scan", System.nanoTime());
+        stats.phase("print", System.nanoTime());
+        stats.print(new PrintStream(out, true, StandardCharsets.UTF_8));
+
+        // then
+        String text = out.toString(StandardCharsets.UTF_8);
+        assertEquals(1, text.lines().filter(l -> l.trim().startsWith("scan")).count());
+        assertTrue(text.contains("print"));
+        assertTrue(text.contains("parse p99"));
+    }
+}
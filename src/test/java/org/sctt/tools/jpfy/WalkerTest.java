@@ -0,0 +1,98 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Unit tests for {@link Walker}.
+ */
+@DisplayName("Walker tests")
+class WalkerTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 0, 3})
+    @DisplayName("Should report every file with its root")
+    void shouldReportEveryFile(int threads, @TempDir Path dir) throws IOException {
+        // given
+        Path first = dir.resolve("first");
+        Path second = dir.resolve("second");
+        long written = new Corpus().files(300).nested(3, 7).resources(0.2).write(first);
+        Files.createDirectories(second.resolve("a/b"));
+        Files.writeString(second.resolve("a/b/X.java"), "package x;");
+        Map<Path, Path> found = new ConcurrentHashMap<>();
+
+        // when
+        new Walker(threads).walk(List.of(first, second), (root, file) -> found.put(file, root));
+
+        // then
+        assertEquals(written + 1, found.size());
+        assertEquals(second, found.get(second.resolve("a/b/X.java")));
+        assertEquals(first, found.get(new Corpus().nested(3, 7).file(first, 299)));
+    }
+
+    @Test
+    @DisplayName("Should not follow links to directories")
+    void shouldNotFollowDirectoryLinks(@TempDir Path dir) throws IOException {
+        // given
+        Path tree = Files.createDirectories(dir.resolve("tree"));
+        Path outside = Files.createDirectories(dir.resolve("outside"));
+        Files.writeString(outside.resolve("A.java"), "package a;");
+        Files.writeString(tree.resolve("B.java"), "package b;");
+        Files.createSymbolicLink(tree.resolve("link"), outside);
+        Files.createSymbolicLink(tree.resolve("C.java"), outside.resolve("A.java"));
+        Map<Path, Path> found = new ConcurrentHashMap<>();
+
+        // when
+        new Walker(2).walk(List.of(tree), (root, file) -> found.put(file, root));
+
+        // then
+        assertEquals(Map.of(tree.resolve("B.java"), tree, tree.resolve("C.java"), tree), found);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3})
+    @DisplayName("Should not list excluded and ignored directories")
+    void shouldPruneSkippedDirectories(int threads, @TempDir Path dir) throws IOException {
+        // given
+        Path tree = Files.createDirectories(dir.resolve("tree"));
+        Files.writeString(tree.resolve(".gitignore"), "node_modules/\n");
+        Files.writeString(tree.resolve("A.java"), "package a;");
+        for (String skipped : List.of("target", "node_modules", ".git", "x/target")) {
+            Files.createDirectories(tree.resolve(skipped));
+            Files.writeString(tree.resolve(skipped).resolve("B.java"), "package b;");
+        }
+        Files.createSymbolicLink(tree.resolve("x/target/loop"), tree);
+        Files.createSymbolicLink(tree.resolve("target/Loop.java"), dir.resolve("missing"));
+        Map<Path, Path> found = new ConcurrentHashMap<>();
+        Filter filter = new Filter(List.of("*.java"), List.of("target"), true);
+
+        // when
+        new Walker(threads, filter).walk(List.of(tree), (root, file) -> found.put(file, root));
+
+        // then
+        assertEquals(Map.of(tree.resolve("A.java"), tree), found);
+    }
+
+    @Test
+    @DisplayName("Should fail on missing root")
+    void shouldFailOnMissingRoot(@TempDir Path dir) {
+        assertThrows(
+            NoSuchFileException.class,
+            () -> new Walker(2).walk(List.of(dir.resolve("missing")), (root, file) -> { })
+        );
+    }
+}
@@ -0,0 +1,100 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Watch}.
+ */
+@DisplayName("Watch tests")
+class WatchTest {
+
+    @Test
+    @DisplayName("Should move new files, also in new directories")
+    void shouldMoveNewFiles(@TempDir Path tempDir) throws Exception {
+        // given
+        Map<Path, Path> moved = new ConcurrentHashMap<>();
+        Thread thread = watch(tempDir, Filter.ALL, moved);
+
+        // when
+        Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+        Path nested = Files.createDirectories(tempDir.resolve("drop/deep"));
+        Files.writeString(nested.resolve("B.java"), "package org.b;");
+        Path first = tempDir.resolve("org/a/A.java");
+        Path second = tempDir.resolve("org/b/B.java");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while ((!Files.exists(first) || !Files.exists(second))
+            && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        thread.interrupt();
+        thread.join(5_000);
+
+        // then
+        assertTrue(Files.exists(first), "File in root should be moved");
+        assertTrue(Files.exists(second), "File in new directory should be moved");
+        assertEquals(2, moved.size());
+    }
+
+    @Test
+    @DisplayName("Should leave files and directories the filter skips alone")
+    void shouldHonorFilter(@TempDir Path tempDir) throws Exception {
+        // given
+        Files.writeString(tempDir.resolve(".gitignore"), "target/\n");
+        Path target = Files.createDirectories(tempDir.resolve("target"));
+        Map<Path, Path> moved = new ConcurrentHashMap<>();
+        Thread thread = watch(tempDir, new Filter(List.of(), List.of("build", "*Gen.java"), true), moved);
+
+        // when
+        Files.writeString(target.resolve("T.java"), "package org.t;");
+        Path build = Files.createDirectories(tempDir.resolve("build"));
+        Files.writeString(build.resolve("B.java"), "package org.b;");
+        Files.writeString(tempDir.resolve("AGen.java"), "package org.a;");
+        Files.writeString(tempDir.resolve("A.java"), "package org.a;");
+        Path placed = tempDir.resolve("org/a/A.java");
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!Files.exists(placed) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(300);
+        thread.interrupt();
+        thread.join(5_000);
+
+        // then
+        assertTrue(Files.exists(placed), "Accepted file should be moved");
+        assertTrue(Files.exists(target.resolve("T.java")), "Ignored directory should not be watched");
+        assertTrue(Files.exists(build.resolve("B.java")), "Excluded new directory should not be watched");
+        assertTrue(Files.exists(tempDir.resolve("AGen.java")), "Excluded file should not be moved");
+        assertEquals(Map.of(tempDir.resolve("A.java"), placed), moved);
+    }
+
+    private static Thread watch(Path root, Filter filter, Map<Path, Path> moved) throws InterruptedException {
+        Buffers buffers = new Buffers(64);
+        Thread thread = new Thread(() -> {
+            try {
+                new Watch(
+                    root, f -> new PrefixJavaFile(f, buffers),
+                    new MoveTransfer(), 10, moved::put, System.err, filter
+                ).run();
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        thread.start();
+        Thread.sleep(200);
+        return thread;
+    }
+}
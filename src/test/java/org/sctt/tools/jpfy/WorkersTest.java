@@ -0,0 +1,81 @@
+package org.sctt.tools.jpfy;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Unit tests for {@link Workers}.
+ */
+@DisplayName("Workers tests")
+class WorkersTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 3})
+    @DisplayName("Should run every submitted task")
+    void shouldRunEveryTask(int threads) {
+        // given
+        AtomicInteger done = new AtomicInteger();
+
+        // when
+        try (Workers workers = new Workers(threads, 2)) {
+            for (int i = 0; i < 100; i++) {
+                workers.submit(done::incrementAndGet);
+            }
+            workers.await();
+        }
+
+        // then
+        assertEquals(100, done.get());
+    }
+
+    @Test
+    @DisplayName("Should not exceed limit of tasks in flight")
+    void shouldNotExceedLimit() {
+        // given
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        // when
+        try (Workers workers = new Workers(0, 3)) {
+            for (int i = 0; i < 50; i++) {
+                workers.submit(() -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.yield();
+                    running.decrementAndGet();
+                });
+            }
+            workers.await();
+        }
+
+        // then
+        assertTrue(peak.get() <= 3, "Peak was " + peak.get());
+    }
+
+    @Test
+    @DisplayName("Should rethrow failure of a task")
+    void shouldRethrowFailure() {
+        // given
+        Workers workers = new Workers(2, 2);
+        workers.submit(() -> {
+            throw new IllegalStateException("boom");
+        });
+
+        // when / then
+        assertThrows(IllegalStateException.class, workers::await);
+        workers.close();
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive limit")
+    void shouldRejectNonPositiveLimit() {
+        assertThrows(IllegalArgumentException.class, () -> new Workers(1, 0));
+    }
+}